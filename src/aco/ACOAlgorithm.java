@@ -2,6 +2,7 @@ package aco;
 
 import jssp.JSSPAlgorithm;
 import jssp.ProblemInstance;
+import jssp.RandomSource;
 import main.Config;
 
 /**
@@ -18,17 +19,35 @@ public class ACOAlgorithm extends JSSPAlgorithm {
 	// Ant Colony Optimization parameters
 	private float alpha, beta;
 	
+	// Lookup table of the heuristic term (gap + 0.5)^-beta, for gaps below its length
+	private double[] heuristicTable;
+	
+	// The largest size of the heuristic lookup table (larger gaps use Math.pow)
+	private static final int MAX_HEURISTIC_TABLE_SIZE = 1 << 16;
+	
 	/***
 	 * Initialize an Ant Colony Optimization algorithm.
 	 * @param problemInstance - A JSSP problem instance
 	 * @param config - A configuration object
+	 * @param seed - The seed of the algorithm's random generator
 	 */
-	public ACOAlgorithm(ProblemInstance problemInstance, Config config) {
-		super(problemInstance);
+	public ACOAlgorithm(ProblemInstance problemInstance, Config config, long seed) {
+		super(problemInstance, RandomSource.create(config.get("rng"), seed));
 		
 		// Read fields from the config
 		this.alpha = config.getFloat("alpha");
 		this.beta = config.getFloat("beta");
+		setInnerThreads(config.get("innerThreads") == null ? 1 : config.getInt("innerThreads"));
+		setDecoding(config.get("decoding") == null ? SEMI_ACTIVE : config.get("decoding"));
+		setMakespanCacheSize(config.get("makespanCacheSize") == null ? 0 : config.getInt("makespanCacheSize"));
+		
+		// Precompute the heuristic term for all gaps up to the total duration of the operations (or a cap, for very long instances)
+		long totalDuration = 0;
+		for(int op = 0; op < problemInstance.getTotalOperations(); op++)
+			totalDuration += problemInstance.getDuration(op);
+		this.heuristicTable = new double[(int) Math.min(totalDuration + 1, MAX_HEURISTIC_TABLE_SIZE)];
+		for(int gap = 0; gap < heuristicTable.length; gap++)
+			heuristicTable[gap] = Math.pow(gap + 0.5, -beta);
 		
 		int colonySize = config.getInt("colonySize");
 		float initialPheromones = config.getFloat("initialPheromones");
@@ -36,7 +55,20 @@ public class ACOAlgorithm extends JSSPAlgorithm {
 		float Q = config.getFloat("Q");
 		
 		// Initialize the swarm
-		this.colony = new Colony(this, colonySize, initialPheromones, Q, rho);		
+		this.colony = new Colony(this, colonySize, config.get("pheromoneModel"), initialPheromones, Q, rho);
+		if("true".equals(config.get("maxMin")))
+			colony.setMaxMinBounds(config.getFloat("pBest"));
+		if(config.get("restartAfter") != null)
+			colony.setRestartAfter(config.getInt("restartAfter"));		
+	}
+	
+	/***
+	 * Initialize an Ant Colony Optimization algorithm with an unseeded random generator.
+	 * @param problemInstance - A JSSP problem instance
+	 * @param config - A configuration object
+	 */
+	public ACOAlgorithm(ProblemInstance problemInstance, Config config) {
+		this(problemInstance, config, RandomSource.createSeed());
 	}
 	
 	/**
@@ -55,6 +87,15 @@ public class ACOAlgorithm extends JSSPAlgorithm {
 		return alpha;
 	}
 	
+	/**
+	 * Get the heuristic term of the ants' decision rule for a given gap.
+	 * @param gap - The idle time an operation would induce (non-negative)
+	 * @return (gap + 0.5)^-beta
+	 */
+	public double getHeuristic(int gap) {
+		return gap < heuristicTable.length ? heuristicTable[gap] : Math.pow(gap + 0.5, -beta);
+	}
+	
 	/**
 	 * Get the beta parameter of this ACO (used by ants in probability calculation)
 	 * @return beta
@@ -79,13 +120,15 @@ public class ACOAlgorithm extends JSSPAlgorithm {
 		Colony c = getColony();
 		System.out.println("\n############### Iteration " + ranIterations + " ###############");
 		
+		// Pheromones can only be printed as a matrix with the operation model
 		boolean printPheromones = false;
-		if(printPheromones) {
+		if(printPheromones && c.getPheromoneModel() instanceof OperationPheromoneModel) {
+			OperationPheromoneModel pheromones = (OperationPheromoneModel) c.getPheromoneModel();
 			System.out.println("Pheromones:");
 			for(int i = 0; i < getProblemInstance().getTotalOperations() + 1; i++) {
 				String str = "";
 				for(int j = 0; j < getProblemInstance().getTotalOperations() + 1; j++) {
-					float p = c.getPheromones(i, j);
+					float p = pheromones.get(i, j);
 					if(p < 1e-3)
 						p = 0;
 					str += Math.round(p*1000) / 1000.0f + " ";
@@ -99,7 +142,7 @@ public class ACOAlgorithm extends JSSPAlgorithm {
 	}
 	
 	@Override
-	public Integer[] getBestSolution() {
+	public int[] getBestSchedule() {
 		return getColony().getBestSoFar();
 	}
 	
@@ -108,6 +151,11 @@ public class ACOAlgorithm extends JSSPAlgorithm {
 		return getColony().getBestMakespanSoFar();
 	}
 	
+	@Override
+	public void injectSolution(int[] schedule) {
+		getColony().injectSolution(schedule);
+	}
+	
 	@Override
 	public int getRanIterations() {
 		return ranIterations;
@@ -1,10 +1,10 @@
 package aco;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 import jssp.ProblemInstance;
+import jssp.RandomSource;
+import jssp.ScheduleState;
 import utils.RouletteWheel;
 
 /**
@@ -15,26 +15,47 @@ public class Ant {
 	// Store a reference to the ACO
 	private ACOAlgorithm alg;
 	
-	// Current makespan of the ant, updated when operations are added to the schedule
+	// Random generator of this ant, so that ants can be generated in parallel
+	private RandomSource random;
+	
+	// Incremental state of the schedule, updated when operations are added to it (gives the current makespan)
+	private ScheduleState state;
+	
+	// Makespan of the complete schedule, as decoded by the algorithm
 	private int makespan;
 	
 	// The current schedule (rebuilt at every generation)
-	private Integer[] scheduledOperations;
+	private int[] scheduledOperations;
 	private int scheduleIndex;
 	
-	// Store the last operation executed for each job (used for knowing possible next operations)
-	private int[] lastJobOperation;
+	// Jobs that still have operations to schedule, stored in the first eligibleJobsCount cells
+	private int[] eligibleJobs;
+	private int eligibleJobsCount;
 	
-	// Node connections in the pheromone matrix. Ant uses edge (i,j) if connections[i] = j
-	private int[] connections;
+	// Scratch buffers for the candidate operations of a construction step and their weights
+	private int[] candidates;
+	private double[] weights;
+	
+	// Last job scheduled on each machine (-1 if none)
+	private int[] lastJobOnMachine;
 	
 	/**
 	 * Initialize an Ant
 	 * @param alg - A reference to the Ant Colony Optimizer
+	 * @param random - The random generator of this ant
 	 */
-	public Ant(ACOAlgorithm alg) {
+	public Ant(ACOAlgorithm alg, RandomSource random) {
 		this.alg = alg;	
-		scheduledOperations = new Integer[alg.getProblemInstance().getTotalOperations()];
+		this.random = random;
+		
+		// Allocate all buffers once, they are reused by every generation
+		ProblemInstance pb = alg.getProblemInstance();
+		scheduledOperations = new int[pb.getTotalOperations()];
+		lastJobOnMachine = new int[pb.getNumberOfMachines()];
+		eligibleJobs = new int[pb.getNumberOfJobs()];
+		candidates = new int[pb.getNumberOfJobs()];
+		weights = new double[pb.getNumberOfJobs()];
+		state = new ScheduleState(pb);
 	}
 	
 	/**
@@ -44,34 +65,53 @@ public class Ant {
 		ProblemInstance pb = alg.getProblemInstance();
 
 		// Reset
-		makespan = 0;
+		state.reset();
 		scheduleIndex = 0;
-		scheduledOperations = new Integer[pb.getTotalOperations()];
-		connections = new int[pb.getTotalOperations()+1];
-		lastJobOperation = new int[pb.getNumberOfJobs()];
-		Arrays.fill(lastJobOperation, -1);
+		Arrays.fill(lastJobOnMachine, -1);
+		eligibleJobsCount = 0;
+		for(int job = 0; job < pb.getNumberOfJobs(); job++)
+			if(pb.getNumberOfOperations(job) > 0)
+				eligibleJobs[eligibleJobsCount++] = job;
 		
 		// Random chance of ignoring pheromones
-		boolean ignorePheromones = alg.getRandom().nextFloat() < 0.05f;
-		
-		// Choose first operation
-		int operation = chooseNextOperation(ignorePheromones);
-		connections[0] = operation + 1;
+		boolean ignorePheromones = random.nextFloat() < 0.05f;
 		
 		do {
-			int temp = operation;
-			operation = chooseNextOperation(ignorePheromones);
-			connections[temp+1] = operation+1;
+			int operation = chooseNextOperation(ignorePheromones);
 			
 			scheduledOperations[scheduleIndex++] = operation;
-			lastJobOperation[operation / pb.getOperationsPerJob()] = operation;
+			state.append(operation);
 			
-			makespan = alg.computeMakespan(scheduledOperations);
+			// Remove the job from the eligible ones once all its operations are scheduled
+			int job = pb.getJob(operation);
+			lastJobOnMachine[pb.getMachine(operation)] = job;
+			if(state.getNextOperationInJob(job) == pb.getNumberOfOperations(job))
+				removeEligibleJob(job);
 		} while(scheduleIndex < scheduledOperations.length);
+		
+		// The ant builds a semi-active schedule, which active decoding can improve
+		makespan = alg.isActiveDecoding() ? alg.evaluateMakespan(scheduledOperations) : state.getMakespan();
+	}
+	
+	/**
+	 * Get the last operation this ant added to its schedule.
+	 * @return an operation index, or -1 if the schedule is empty
+	 */
+	public int getLastOperation() {
+		return scheduleIndex == 0 ? -1 : scheduledOperations[scheduleIndex-1];
+	}
+	
+	/**
+	 * Get the last job this ant scheduled on a given machine.
+	 * @param machine - A machine index
+	 * @return a job index, or -1 if nothing is scheduled on the machine yet
+	 */
+	public int getLastJob(int machine) {
+		return lastJobOnMachine[machine];
 	}
 	
 	/**
-	 * Get the current makespan of the ant.
+	 * Get the makespan of the schedule built by the ant.
 	 * @return the makespan value
 	 */
 	public int getMakespan() {
@@ -84,46 +124,54 @@ public class Ant {
 	 */
 	private int chooseNextOperation(boolean ignorePheromones) {
 		// Compute eligible operations
-		List<Integer> accessibleOperations = getAccessibleOperations();
-		
-		if(accessibleOperations.size() == 1)
-			return accessibleOperations.get(0);
+		int count = getAccessibleOperations(candidates);
 		
-		ProblemInstance pb = alg.getProblemInstance();
-		float alpha = alg.getAlpha(), beta = alg.getBeta();
+		if(count == 1)
+			return candidates[0];
 		
-		// Calculate the probability for each eligible operation
-		float[] probabilities = new float[pb.getTotalOperations()];
-		int currentNode = scheduleIndex == 0 ? 0 : (1 + scheduledOperations[scheduleIndex-1]);
-
-		double denominator = 0;
-		for(int k : accessibleOperations)
-			denominator += (ignorePheromones ? 1 : Math.pow(alg.getColony().getPheromones(currentNode, k+1), alpha)) / Math.pow(distance(k) + 0.5, beta);
+		// Calculate the weight of each eligible operation from the cached pheromone and heuristic terms (the roulette wheel normalizes them)
+		PheromoneModel pheromones = alg.getColony().getPheromoneModel();
+		double total = 0;
+		for(int c = 0; c < count; c++) {
+			int k = candidates[c];
+			weights[c] = (ignorePheromones ? 1 : pheromones.getWeight(this, k)) * alg.getHeuristic(distance(k));
+			total += weights[c];
+		}
 		
-		for(int j : accessibleOperations)
-			probabilities[j] = (float) (((ignorePheromones ? 1 : Math.pow(alg.getColony().getPheromones(currentNode, j+1), alpha)) / Math.pow(distance(j) + 0.5, beta)) / denominator);
+		// If the pheromone terms of all candidates underflowed, only use the heuristic
+		if(total == 0)
+			for(int c = 0; c < count; c++)
+				weights[c] = alg.getHeuristic(distance(candidates[c]));
 		
-		// Pick a node using roulette wheel with the calculated probabilities
-		int operation = RouletteWheel.spinOnce(alg.getRandom(), probabilities);
-	
-		return operation;
+		// Pick a node using roulette wheel with the calculated weights
+		return candidates[RouletteWheel.spin(random, weights, count)];
 	}
 	
 	/**
 	 * Get the operations that can be executed considering the current state.
-	 * @return a list of operation indices
+	 * @param out - An array (of length at least the number of jobs) in which the operation indices are written
+	 * @return the number of accessible operations written to the given array
 	 */
-	public List<Integer> getAccessibleOperations() {
+	public int getAccessibleOperations(int[] out) {
 		ProblemInstance pb = alg.getProblemInstance();
-		
-		List<Integer> accessible = new ArrayList<Integer>(); 
-		for(int job = 0; job < pb.getNumberOfJobs(); job++) {
-			if(lastJobOperation[job] == -1)
-				accessible.add(job * pb.getOperationsPerJob());
-			else if((lastJobOperation[job] + 1) % pb.getOperationsPerJob() != 0)
-				accessible.add(lastJobOperation[job] + 1);
-		}		
-		return accessible;
+		for(int i = 0; i < eligibleJobsCount; i++) {
+			int job = eligibleJobs[i];
+			out[i] = pb.getOperationIndex(job, state.getNextOperationInJob(job));
+		}
+		return eligibleJobsCount;
+	}
+	
+	/**
+	 * Remove a job from the eligible jobs, by swapping it with the last eligible one.
+	 * @param job - A job index
+	 */
+	private void removeEligibleJob(int job) {
+		for(int i = 0; i < eligibleJobsCount; i++) {
+			if(eligibleJobs[i] == job) {
+				eligibleJobs[i] = eligibleJobs[--eligibleJobsCount];
+				return;
+			}
+		}
 	}
 	
 	/**
@@ -133,28 +181,18 @@ public class Ant {
 	 */
 	private int distance(int addedOperation) {
 		/*
-		Integer[] newOrder = Arrays.copyOf(scheduledOperations, scheduleIndex + 1);
+		int[] newOrder = Arrays.copyOf(scheduledOperations, scheduleIndex + 1);
 		newOrder[scheduleIndex] = addedOperation;
 		return alg.computeMakespan(newOrder) - getMakespan();
 		*/
-		return alg.getInducedGap(scheduledOperations, addedOperation);
+		return state.peekGap(addedOperation);
 	}
 	
 	/**
 	 * Get the ant's scheduled order of operations.
 	 * @return an array with ordered operation indices
 	 */
-	public Integer[] getScheduledOperations() {
+	public int[] getScheduledOperations() {
 		return scheduledOperations;
 	}
-
-	/**
-	 * Get whether or not this ant uses the edge (i,j) in the pheromone matrix.
-	 * @param i - A node index in the pheromone matrix
-	 * @param j - A node index in the pheromone matrix
-	 * @return true if edge (i,j) is found in the ant's route, else false
-	 */
-	public boolean hasConnection(int i, int j) {
-		return connections[i] == j;
-	}
 }
@@ -13,44 +13,45 @@ public class Colony {
 	// The ants that make up the colony
 	private Ant[] ants;
 	
-	// Pheromone matrix
-	private float[][] pheromones;
+	// Pheromone levels of the decisions made by the ants
+	private PheromoneModel pheromones;
 	
 	// Store the best position achieved by the colony, and its associated makespan
-	private Integer[] bestSoFar;
+	private int[] bestSoFar;
 	private int bestMakespanSoFar;
 	
 	// Pheromone parameters
-	private float Q, rho;
+	private float Q, rho, initialPheromones;
 	
-	public Colony(ACOAlgorithm alg, int size, float initialPheromones, float Q, float rho) {
+	// Whether pheromone levels are bounded as in Max-Min Ant System, and the probability used to compute the lower bound
+	private boolean maxMin;
+	private float pBest;
+	
+	// Number of iterations without improvement after which pheromones are reset (0 to never reset)
+	private int restartAfter;
+	private int iterationsSinceImprovement;
+	
+	// Number of pheromone resets so far
+	private int restarts;
+	
+	public Colony(ACOAlgorithm alg, int size, String pheromoneModel, float initialPheromones, float Q, float rho) {
 		this.alg = alg;
 		this.ants = new Ant[size];
 		this.Q = Q;
 		this.rho = rho;
+		this.initialPheromones = initialPheromones;
 		
 		ProblemInstance pb = alg.getProblemInstance();
 		
 		this.bestMakespanSoFar = Integer.MAX_VALUE;
-		this.bestSoFar = new Integer[pb.getTotalOperations()];
+		this.bestSoFar = new int[pb.getTotalOperations()];
 		
-		// Init pheromone matrix
-		pheromones = new float[pb.getTotalOperations() + 1][pb.getTotalOperations() + 1];
-		for(int i = 0; i < pb.getNumberOfJobs(); i++)
-			pheromones[0][1 + i * pb.getOperationsPerJob()] = initialPheromones;
-		for(int i = 0; i < pb.getTotalOperations(); i++) {
-			int job = i / pb.getOperationsPerJob();
-			// Set initial pheromones on each edge from i to an accessible operation
-			for(int op = 0; op < pb.getTotalOperations(); op++) {
-				int jobOp = op / pb.getOperationsPerJob();		
-				if(jobOp != job || op == i+1)
-					pheromones[i+1][op+1] = initialPheromones;
-			}
-		}
+		// Set initial pheromones on each possible decision
+		pheromones = PheromoneModel.create(pheromoneModel, pb, alg.getAlpha(), initialPheromones);
 		
 		// Create ants
 		for(int i = 0; i < size; i++)
-			this.ants[i] = new Ant(alg);
+			this.ants[i] = new Ant(alg, alg.getRandom().split());
 	}
 	
 	/**
@@ -62,51 +63,136 @@ public class Colony {
 	}
 	
 	/**
-	 * Get the pheromone level between two given nodes.
-	 * @param i - A node
-	 * @param j - Another node
+	 * Get the pheromone model of this colony.
+	 * @return the pheromone model
 	 */
-	public float getPheromones(int i, int j) {
-		return pheromones[i][j];
+	public PheromoneModel getPheromoneModel() {
+		return pheromones;
+	}
+	
+	/**
+	 * Get the number of bytes used to store the pheromones of this colony.
+	 * @return a number of bytes
+	 */
+	public long getPheromoneMemoryUsage() {
+		return pheromones.getMemoryUsage();
 	}
 	
 	/**
 	 * Generate the next generation of ants.
+	 * Ants only read the pheromone matrix and use their own random generator and buffers, so they can be generated in parallel.
+	 * The best ant of the previous generation is kept.
 	 */
 	public void nextGeneration() {
-		for(int i = 0; i < ants.length; i++)
-			if(alg.getRanIterations() == 0 || ants[i] != getBestAnt())
+		Ant best = alg.getRanIterations() == 0 ? null : getBestAnt();
+		alg.forEachIndex(ants.length, (i) -> {
+			if(ants[i] != best)
 				ants[i].generate();
+		});
 		
-		// Update the best solution so far
+		// Update the best solution so far (in order, so that ties are resolved the same way whatever the number of threads)
+		iterationsSinceImprovement++;
 		for(Ant a : this.getAnts()) {
 			if(a.getMakespan() < bestMakespanSoFar) {
 				bestMakespanSoFar = a.getMakespan();
-				for(int i = 0; i < a.getScheduledOperations().length; i++)
-					bestSoFar[i] = a.getScheduledOperations()[i];
+				System.arraycopy(a.getScheduledOperations(), 0, bestSoFar, 0, bestSoFar.length);
+				iterationsSinceImprovement = 0;
 			}
 		}
 	}
 	
 	/**
 	 * Update the pheromone matrix based on which edges were the most successful.
+	 * Evaporation is applied to all decisions at once through a global factor, so only the decisions made by the ants are visited.
 	 */
 	public void updatePheromones() {
 		boolean onlyBest = true;
 		
 		Ant[] ants = onlyBest ? new Ant[] {getBestAnt()} : getAnts();
 		
-		for(int i = 0; i < pheromones.length; i++) {
-			for(int j = 0; j < pheromones[i].length; j++) {
-				float delta = 0.0f;
-				for(Ant a : ants)
-					delta += a.hasConnection(i, j) ? Q / (float) a.getMakespan() : 0;
-				
-				pheromones[i][j] = (1.0f - rho) * pheromones[i][j] + delta;
-			}
+		// Reinitialize the trails if the colony has stagnated (the best solution so far is kept)
+		if(restartAfter > 0 && iterationsSinceImprovement >= restartAfter) {
+			pheromones.reset(maxMin ? getMaxPheromoneLevel() : initialPheromones);
+			iterationsSinceImprovement = 0;
+			restarts++;
+		}
+		
+		// Bound pheromone levels with limits derived from the best makespan so far
+		if(maxMin) {
+			float maxLevel = getMaxPheromoneLevel();
+			pheromones.setLimits(maxLevel * getMinMaxRatio(), maxLevel);
+		}
+		
+		// Evaporate
+		pheromones.evaporate(rho);
+		
+		// Deposit along the schedule of each ant
+		for(Ant a : ants)
+			pheromones.deposit(a.getScheduledOperations(), Q / (float) a.getMakespan());
+	}
+	
+	/**
+	 * Reinforce the decisions of a schedule found elsewhere, as if an ant had built it, and keep it if it is the best so far.
+	 * @param schedule - A complete order of operations, using actual operation indices
+	 */
+	public void injectSolution(int[] schedule) {
+		int makespan = alg.computeMakespan(schedule);
+		
+		pheromones.deposit(schedule, Q / (float) makespan);
+		
+		if(makespan < bestMakespanSoFar) {
+			bestMakespanSoFar = makespan;
+			System.arraycopy(schedule, 0, bestSoFar, 0, bestSoFar.length);
 		}
 	}
 	
+	/**
+	 * Enable the Max-Min Ant System bounds of the pheromone levels.
+	 * The upper bound is the level an edge converges to when it is always reinforced by the best makespan, Q / (rho * makespan).
+	 * The lower bound is chosen so that an ant builds the best schedule with probability pBest once the pheromones have converged.
+	 * @param pBest - A probability in ]0,1[ (lower values give a higher lower bound)
+	 */
+	public void setMaxMinBounds(float pBest) {
+		this.maxMin = true;
+		this.pBest = pBest;
+	}
+	
+	/**
+	 * Set the number of iterations without improvement after which the pheromones are reinitialized.
+	 * @param restartAfter - A number of iterations, or 0 to never reinitialize the pheromones
+	 */
+	public void setRestartAfter(int restartAfter) {
+		this.restartAfter = restartAfter;
+	}
+	
+	/**
+	 * Get the number of times the pheromones were reinitialized.
+	 * @return the number of restarts
+	 */
+	public int getRestarts() {
+		return restarts;
+	}
+	
+	/**
+	 * Get the upper bound of the pheromone levels in Max-Min Ant System.
+	 * @return Q / (rho * best makespan so far)
+	 */
+	private float getMaxPheromoneLevel() {
+		return Q / (rho * bestMakespanSoFar);
+	}
+	
+	/**
+	 * Get the ratio between the lower and upper bounds of the pheromone levels in Max-Min Ant System.
+	 * @return tau_min / tau_max
+	 */
+	private float getMinMaxRatio() {
+		ProblemInstance pb = alg.getProblemInstance();
+		// Probability of making the best decision at each step, and average number of candidates per step
+		double pDec = Math.pow(pBest, 1.0 / pb.getTotalOperations());
+		double avg = Math.max(2.0, pb.getNumberOfJobs() / 2.0);
+		return (float) ((1 - pDec) / ((avg - 1) * pDec));
+	}
+	
 	/**
 	 * Get the best ant in the colony with regards to makespan.
 	 * @return the ant with the lowest makespan
@@ -139,7 +225,7 @@ public class Colony {
 	 * Get the best solution so far.
 	 * @return the best order of operations found by this ant colony
 	 */
-	public Integer[] getBestSoFar() {
+	public int[] getBestSoFar() {
 		return bestSoFar;
 	}
 	
@@ -0,0 +1,102 @@
+package aco;
+
+import java.util.Arrays;
+
+import jssp.ProblemInstance;
+
+/**
+ * Pheromone model over the order of the jobs on each machine: pheromones are deposited on "job j follows job k on machine M".
+ * A schedule is fully determined by these orders, and the model only needs m matrices of size (n+1) x n instead of a matrix over
+ * all pairs of operations. Row 0 of each matrix stands for the start of the machine, and row k+1 for job k.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class MachinePheromoneModel implements PheromoneModel {
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Pheromone levels, machine after machine
+	private PheromoneStore store;
+	
+	// Last job scheduled on each machine, used while depositing along a schedule
+	private int[] lastJobs;
+	
+	/**
+	 * Create a machine pheromone model with the same level on all decisions.
+	 * @param pb - A problem instance
+	 * @param alpha - The exponent of the pheromone levels in the ants' decision rule (must be positive)
+	 * @param initialPheromones - The initial pheromone level
+	 */
+	public MachinePheromoneModel(ProblemInstance pb, float alpha, float initialPheromones) {
+		this.pb = pb;
+		this.store = new PheromoneStore(countCells(pb), alpha, initialPheromones);
+		this.lastJobs = new int[pb.getNumberOfMachines()];
+	}
+	
+	@Override
+	public float getWeight(Ant ant, int operation) {
+		int machine = pb.getMachine(operation);
+		return store.getWeight(getIndex(machine, ant.getLastJob(machine), pb.getJob(operation)));
+	}
+	
+	@Override
+	public void evaporate(float rho) {
+		store.evaporate(rho);
+	}
+	
+	@Override
+	public void setLimits(float minLevel, float maxLevel) {
+		store.setLimits(minLevel, maxLevel);
+	}
+	
+	@Override
+	public void reset(float level) {
+		store.reset(level);
+	}
+	
+	@Override
+	public void deposit(int[] schedule, float amount) {
+		Arrays.fill(lastJobs, -1);
+		for(int op : schedule) {
+			int machine = pb.getMachine(op);
+			int job = pb.getJob(op);
+			store.deposit(getIndex(machine, lastJobs[machine], job), amount);
+			lastJobs[machine] = job;
+		}
+	}
+	
+	@Override
+	public long getMemoryUsage() {
+		return store.getMemoryUsage() + 4L * lastJobs.length;
+	}
+	
+	/**
+	 * Estimate the number of bytes a machine pheromone model would use for a given problem instance, without allocating it.
+	 * @param pb - A problem instance
+	 * @return a number of bytes
+	 */
+	public static long estimateMemoryUsage(ProblemInstance pb) {
+		return PheromoneStore.BYTES_PER_CELL * countCells(pb) + 4L * pb.getNumberOfMachines();
+	}
+	
+	/**
+	 * Get the index of the cell storing a decision.
+	 * @param machine - A machine
+	 * @param previousJob - The job previously scheduled on the machine, or -1 if none
+	 * @param job - The job that follows it
+	 * @return an index in the store
+	 */
+	private int getIndex(int machine, int previousJob, int job) {
+		int n = pb.getNumberOfJobs();
+		return (machine * (n + 1) + previousJob + 1) * n + job;
+	}
+	
+	/**
+	 * Count the cells needed for a given problem instance.
+	 * @param pb - A problem instance
+	 * @return the number of decisions
+	 */
+	private static long countCells(ProblemInstance pb) {
+		long n = pb.getNumberOfJobs();
+		return pb.getNumberOfMachines() * (n + 1) * n;
+	}
+}
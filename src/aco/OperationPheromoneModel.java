@@ -0,0 +1,149 @@
+package aco;
+
+import jssp.ProblemInstance;
+
+/**
+ * Pheromone model over pairs of operations: pheromones are deposited on the edge between consecutive operations of a schedule.
+ * Only feasible edges are stored, in a single flat array: from the start node to the first operation of each job, and from an
+ * operation to the operations of the other jobs and to its successor in its own job.
+ * Nodes are numbered as in the ants' routes: 0 for the start node, and the operation index plus one for an operation.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class OperationPheromoneModel implements PheromoneModel {
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Pheromone levels, row after row (row i holds the edges leaving node i)
+	private PheromoneStore store;
+	
+	// Index of the first cell of each row
+	private int[] rowOffsets;
+	
+	/**
+	 * Create an operation pheromone model with the same level on all feasible edges.
+	 * @param pb - A problem instance
+	 * @param alpha - The exponent of the pheromone levels in the ants' decision rule (must be positive)
+	 * @param initialPheromones - The initial pheromone level
+	 */
+	public OperationPheromoneModel(ProblemInstance pb, float alpha, float initialPheromones) {
+		this.pb = pb;
+		this.store = new PheromoneStore(countCells(pb), alpha, initialPheromones);
+		
+		// Compute the row offsets
+		rowOffsets = new int[pb.getTotalOperations() + 2];
+		for(int i = 0; i <= pb.getTotalOperations(); i++)
+			rowOffsets[i+1] = rowOffsets[i] + getRowLength(pb, i);
+	}
+	
+	/**
+	 * Get the pheromone level of an edge.
+	 * @param i - A node
+	 * @param j - Another node
+	 * @return the pheromone level, or 0 if the edge is not feasible
+	 */
+	public float get(int i, int j) {
+		int index = getIndex(i, j);
+		return index < 0 ? 0 : store.get(index);
+	}
+	
+	@Override
+	public float getWeight(Ant ant, int operation) {
+		int index = getIndex(ant.getLastOperation() + 1, operation + 1);
+		return index < 0 ? 0 : store.getWeight(index);
+	}
+	
+	@Override
+	public void evaporate(float rho) {
+		store.evaporate(rho);
+	}
+	
+	@Override
+	public void setLimits(float minLevel, float maxLevel) {
+		store.setLimits(minLevel, maxLevel);
+	}
+	
+	@Override
+	public void reset(float level) {
+		store.reset(level);
+	}
+	
+	@Override
+	public void deposit(int[] schedule, float amount) {
+		// Deposit from the start node along the path of the schedule
+		int previous = 0;
+		for(int op : schedule) {
+			int index = getIndex(previous, op + 1);
+			if(index >= 0)
+				store.deposit(index, amount);
+			previous = op + 1;
+		}
+	}
+	
+	@Override
+	public long getMemoryUsage() {
+		return store.getMemoryUsage() + 4L * rowOffsets.length;
+	}
+	
+	/**
+	 * Estimate the number of bytes an operation pheromone model would use for a given problem instance, without allocating it.
+	 * @param pb - A problem instance
+	 * @return a number of bytes
+	 */
+	public static long estimateMemoryUsage(ProblemInstance pb) {
+		return PheromoneStore.BYTES_PER_CELL * countCells(pb) + 4L * (pb.getTotalOperations() + 2);
+	}
+	
+	/**
+	 * Get the index of the cell storing an edge.
+	 * @param i - A node
+	 * @param j - Another node
+	 * @return an index in the store, or -1 if the edge is not feasible
+	 */
+	private int getIndex(int i, int j) {
+		if(j == 0)
+			return -1;
+		
+		int target = j - 1;
+		int targetJob = pb.getJob(target);
+		
+		// From the start node, the row is indexed by job
+		if(i == 0)
+			return pb.getPositionInJob(target) == 0 ? rowOffsets[0] + targetJob : -1;
+		
+		int source = i - 1;
+		int job = pb.getJob(source);
+		int jobStart = pb.getOperationIndex(job, 0);
+		int jobLength = pb.getNumberOfOperations(job);
+		
+		// Operations of other jobs keep their order, skipping the operations of the source's job
+		if(targetJob != job)
+			return rowOffsets[i] + (target < jobStart ? target : target - jobLength);
+		
+		// The successor in the same job is stored in the last cell of the row
+		return target == source + 1 ? rowOffsets[i+1] - 1 : -1;
+	}
+	
+	/**
+	 * Get the number of feasible edges leaving a node.
+	 * @param pb - A problem instance
+	 * @param i - A node
+	 * @return the length of the row of the node
+	 */
+	private static int getRowLength(ProblemInstance pb, int i) {
+		if(i == 0)
+			return pb.getNumberOfJobs();
+		return pb.getTotalOperations() - pb.getNumberOfOperations(pb.getJob(i - 1)) + 1;
+	}
+	
+	/**
+	 * Count the cells needed for a given problem instance.
+	 * @param pb - A problem instance
+	 * @return the number of feasible edges
+	 */
+	private static long countCells(ProblemInstance pb) {
+		long cells = 0;
+		for(int i = 0; i <= pb.getTotalOperations(); i++)
+			cells += getRowLength(pb, i);
+		return cells;
+	}
+}
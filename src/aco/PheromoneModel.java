@@ -0,0 +1,81 @@
+package aco;
+
+import jssp.ProblemInstance;
+
+/**
+ * Defines where an ant colony stores pheromones, i.e. which decisions of the ants are reinforced.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public interface PheromoneModel {
+	/**
+	 * Get the pheromone term of the decision rule for an ant adding a given operation to its schedule.
+	 * @param ant - An ant building its schedule
+	 * @param operation - An operation that can be added to the ant's schedule
+	 * @return a value proportional to the pheromone level to the power of alpha (the factor is the same for all decisions)
+	 */
+	public float getWeight(Ant ant, int operation);
+	
+	/**
+	 * Evaporate the pheromones of all decisions.
+	 * @param rho - The evaporation rate
+	 */
+	public void evaporate(float rho);
+	
+	/**
+	 * Set the bounds of the pheromone levels.
+	 * @param minLevel - The lowest pheromone level (0 for no lower bound)
+	 * @param maxLevel - The highest pheromone level (infinity for no upper bound)
+	 */
+	public void setLimits(float minLevel, float maxLevel);
+	
+	/**
+	 * Set the same pheromone level on all decisions.
+	 * @param level - A pheromone level
+	 */
+	public void reset(float level);
+	
+	/**
+	 * Add pheromones on all decisions made to build a schedule.
+	 * @param schedule - A complete order of operations, using actual operation indices
+	 * @param amount - The pheromone level to add on each decision
+	 */
+	public void deposit(int[] schedule, float amount);
+	
+	/**
+	 * Get the number of bytes used to store the pheromones.
+	 * @return a number of bytes
+	 */
+	public long getMemoryUsage();
+	
+	/**
+	 * Create a pheromone model of a given type.
+	 * @param type - "operation" (default when null) or "machine"
+	 * @param pb - A problem instance
+	 * @param alpha - The exponent of the pheromone levels in the ants' decision rule
+	 * @param initialPheromones - The initial pheromone level
+	 * @return a new pheromone model
+	 */
+	public static PheromoneModel create(String type, ProblemInstance pb, float alpha, float initialPheromones) {
+		if(type == null || type.equals("operation"))
+			return new OperationPheromoneModel(pb, alpha, initialPheromones);
+		else if(type.equals("machine"))
+			return new MachinePheromoneModel(pb, alpha, initialPheromones);
+		
+		throw new IllegalArgumentException("Unknown pheromone model '" + type + "'");
+	}
+	
+	/**
+	 * Estimate the number of bytes a pheromone model would use for a given problem instance, without allocating it.
+	 * @param type - "operation" (default when null) or "machine"
+	 * @param pb - A problem instance
+	 * @return a number of bytes
+	 */
+	public static long estimateMemoryUsage(String type, ProblemInstance pb) {
+		if(type == null || type.equals("operation"))
+			return OperationPheromoneModel.estimateMemoryUsage(pb);
+		else if(type.equals("machine"))
+			return MachinePheromoneModel.estimateMemoryUsage(pb);
+		
+		throw new IllegalArgumentException("Unknown pheromone model '" + type + "'");
+	}
+}
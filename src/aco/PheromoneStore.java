@@ -0,0 +1,145 @@
+package aco;
+
+import java.util.Arrays;
+
+/**
+ * Flat storage of pheromone levels, used by the pheromone models.
+ * Each cell holds the pheromone level, up to a global factor which implements evaporation lazily, and a cached copy of that
+ * level to the power of alpha (the pheromone term of the ants' decision rule), which is updated whenever the level changes.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class PheromoneStore {
+	// Number of bytes used by each cell (a level and a weight)
+	public static final int BYTES_PER_CELL = 8;
+	
+	// The store is renormalized when the global factor of the weights falls below this value
+	private static final double RENORMALIZATION_THRESHOLD = 1e-20;
+	
+	// Pheromone levels, and the same levels to the power of alpha, up to a factor common to all cells
+	private float[] levels;
+	private float[] weights;
+	
+	// The exponent of the pheromone levels
+	private float alpha;
+	
+	// Global factor of the pheromone levels (the weights are multiplied by scale^alpha)
+	private float scale;
+	
+	// Bounds of the pheromone levels (none by default)
+	private float minLevel, maxLevel;
+	
+	// The lower bound, as a stored level and as a stored weight (they depend on the global factor)
+	private float minStoredLevel;
+	private float minWeight;
+	
+	/**
+	 * Create a pheromone store with the same level in all cells.
+	 * @param size - The number of cells
+	 * @param alpha - The exponent of the pheromone levels in the ants' decision rule (must be positive)
+	 * @param initialPheromones - The initial pheromone level
+	 */
+	public PheromoneStore(long size, float alpha, float initialPheromones) {
+		if(alpha <= 0)
+			throw new IllegalArgumentException("The pheromone exponent (alpha) must be positive");
+		if(size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many pheromone cells (" + size + ")");
+		
+		this.alpha = alpha;
+		this.levels = new float[(int) size];
+		this.weights = new float[(int) size];
+		this.maxLevel = Float.POSITIVE_INFINITY;
+		reset(initialPheromones);
+	}
+	
+	/**
+	 * Get the pheromone level of a cell.
+	 * @param index - The index of a cell
+	 * @return the pheromone level
+	 */
+	public float get(int index) {
+		return Math.max(levels[index], minStoredLevel) * scale;
+	}
+	
+	/**
+	 * Get the pheromone term of a cell in the ants' decision rule.
+	 * @param index - The index of a cell
+	 * @return a value proportional to the pheromone level to the power of alpha (the factor is the same for all cells)
+	 */
+	public float getWeight(int index) {
+		// The lower bound is applied when reading, since evaporation doesn't visit the cells
+		return Math.max(weights[index], minWeight);
+	}
+	
+	/**
+	 * Evaporate the pheromones of all cells at once, by updating the global factor.
+	 * @param rho - The evaporation rate
+	 */
+	public void evaporate(float rho) {
+		scale *= 1.0f - rho;
+		if(Math.pow(scale, alpha) < RENORMALIZATION_THRESHOLD)
+			renormalize();
+		updateMinWeight();
+	}
+	
+	/**
+	 * Add pheromones in a cell.
+	 * @param index - The index of a cell
+	 * @param amount - The pheromone level to add
+	 */
+	public void deposit(int index, float amount) {
+		float level = Math.min(Math.max(levels[index], minStoredLevel) + amount / scale, maxLevel / scale);
+		levels[index] = level;
+		weights[index] = (float) Math.pow(level, alpha);
+	}
+	
+	/**
+	 * Set the bounds of the pheromone levels (as in Max-Min Ant System).
+	 * The lower bound applies to all cells immediately, the upper bound is enforced when depositing.
+	 * @param minLevel - The lowest pheromone level (0 for no lower bound)
+	 * @param maxLevel - The highest pheromone level (infinity for no upper bound)
+	 */
+	public void setLimits(float minLevel, float maxLevel) {
+		this.minLevel = minLevel;
+		this.maxLevel = maxLevel;
+		updateMinWeight();
+	}
+	
+	/**
+	 * Set the same pheromone level in all cells.
+	 * @param level - A pheromone level
+	 */
+	public void reset(float level) {
+		scale = 1.0f;
+		Arrays.fill(levels, level);
+		Arrays.fill(weights, (float) Math.pow(level, alpha));
+		updateMinWeight();
+	}
+	
+	/**
+	 * Get the number of bytes used by this store.
+	 * @return a number of bytes
+	 */
+	public long getMemoryUsage() {
+		return (long) BYTES_PER_CELL * levels.length;
+	}
+	
+	/**
+	 * Fold the global factor into the levels and weights, so that they don't overflow.
+	 */
+	private void renormalize() {
+		float factor = (float) Math.pow(scale, alpha);
+		for(int i = 0; i < levels.length; i++) {
+			levels[i] *= scale;
+			weights[i] *= factor;
+		}
+		scale = 1.0f;
+	}
+	
+	/**
+	 * Compute the stored level and weight corresponding to the lower bound of the pheromone levels.
+	 */
+	private void updateMinWeight() {
+		minStoredLevel = minLevel / scale;
+		minWeight = minLevel <= 0 ? 0 : (float) Math.pow(minStoredLevel, alpha);
+	}
+}
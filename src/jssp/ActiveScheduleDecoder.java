@@ -0,0 +1,146 @@
+package jssp;
+
+import java.util.Arrays;
+
+/**
+ * Decodes orders of operations into active schedules: each operation starts in the earliest idle interval of its machine
+ * where it fits after its job predecessor, instead of after the last operation of its machine (semi-active schedule).
+ * The idle intervals of each machine are kept sorted by start time in primitive arrays. A binary search skips the intervals
+ * that end too early, but the remaining ones are scanned for one that is long enough, and splitting or filling an interval
+ * shifts the following ones: placing an operation takes O(k) time for a machine with k idle intervals. Machines usually have
+ * few idle intervals, so the scan stays short.
+ * A decoder owns its buffers, it should not be shared between threads.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class ActiveScheduleDecoder {
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Idle intervals [gapStarts[i], gapEnds[i][ of each machine, sorted (machine k uses cells from gapOffsets[k])
+	private int[] gapStarts, gapEnds;
+	private int[] gapOffsets;
+	private int[] gapCounts;
+	
+	// Index (within its job) of the next operation of each job
+	private int[] nextOperationInJob;
+	
+	// Time at which each job and each machine becomes available (ignoring idle intervals)
+	private int[] jobTimes, machineTimes;
+	
+	/**
+	 * Create a decoder for a given problem instance.
+	 * @param pb - A problem instance
+	 */
+	public ActiveScheduleDecoder(ProblemInstance pb) {
+		this.pb = pb;
+		
+		int machines = pb.getNumberOfMachines();
+		nextOperationInJob = new int[pb.getNumberOfJobs()];
+		jobTimes = new int[pb.getNumberOfJobs()];
+		machineTimes = new int[machines];
+		gapCounts = new int[machines];
+		
+		// A machine has at most one idle interval before each of its operations
+		gapOffsets = new int[machines + 1];
+		for(int op = 0; op < pb.getTotalOperations(); op++)
+			gapOffsets[pb.getMachine(op) + 1]++;
+		for(int k = 0; k < machines; k++)
+			gapOffsets[k+1] += gapOffsets[k];
+		gapStarts = new int[gapOffsets[machines]];
+		gapEnds = new int[gapOffsets[machines]];
+	}
+	
+	/**
+	 * Decode an order of operations into an active schedule.
+	 * Only the job of each operation is used: the k-th occurrence of a job stands for its k-th operation.
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @param length - The number of operations to consider, from the start of the array
+	 * @param startTimes - An array in which the start time of each actual operation index is written, or null
+	 * @return the makespan
+	 */
+	public int decode(int[] operationOrder, int length, int[] startTimes) {
+		Arrays.fill(nextOperationInJob, 0);
+		Arrays.fill(jobTimes, 0);
+		Arrays.fill(machineTimes, 0);
+		Arrays.fill(gapCounts, 0);
+		
+		int makespan = 0;
+		for(int i = 0; i < length; i++) {
+			int job = pb.getJob(operationOrder[i]);
+			int operation = pb.getOperationIndex(job, nextOperationInJob[job]++);
+			int machine = pb.getMachine(operation);
+			int duration = pb.getDuration(operation);
+			
+			int startTime = insertInGap(machine, jobTimes[job], duration);
+			if(startTime < 0) {
+				// No idle interval can hold the operation: append it, leaving an idle interval before it if the job isn't ready
+				startTime = Math.max(jobTimes[job], machineTimes[machine]);
+				if(startTime > machineTimes[machine]) {
+					int gap = gapOffsets[machine] + gapCounts[machine]++;
+					gapStarts[gap] = machineTimes[machine];
+					gapEnds[gap] = startTime;
+				}
+				machineTimes[machine] = startTime + duration;
+			}
+			
+			int endTime = startTime + duration;
+			jobTimes[job] = endTime;
+			if(endTime > makespan)
+				makespan = endTime;
+			if(startTimes != null)
+				startTimes[operation] = startTime;
+		}
+		return makespan;
+	}
+	
+	/**
+	 * Place an operation in the earliest idle interval of a machine that can hold it, and split that interval.
+	 * Takes O(k) time for a machine with k idle intervals (scan of the intervals that are too short, and shift on split or removal).
+	 * @param machine - A machine index
+	 * @param readyTime - The time at which the operation's job is available
+	 * @param duration - The duration of the operation
+	 * @return the start time of the operation, or -1 if no idle interval can hold it
+	 */
+	private int insertInGap(int machine, int readyTime, int duration) {
+		int first = gapOffsets[machine], end = first + gapCounts[machine];
+		
+		// Intervals are disjoint and sorted, so their ends are sorted too: skip those ending before readyTime + duration
+		int lo = first, hi = end;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(gapEnds[mid] < readyTime + duration)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		
+		// Only the first remaining interval can start before readyTime
+		for(int i = lo; i < end; i++) {
+			int startTime = Math.max(gapStarts[i], readyTime);
+			if(startTime + duration > gapEnds[i])
+				continue;
+			
+			// Keep the parts of the interval before and after the operation
+			int gapStart = gapStarts[i], gapEnd = gapEnds[i];
+			if(startTime > gapStart && startTime + duration < gapEnd) {
+				gapEnds[i] = startTime;
+				System.arraycopy(gapStarts, i + 1, gapStarts, i + 2, end - i - 1);
+				System.arraycopy(gapEnds, i + 1, gapEnds, i + 2, end - i - 1);
+				gapStarts[i+1] = startTime + duration;
+				gapEnds[i+1] = gapEnd;
+				gapCounts[machine]++;
+			}
+			else if(startTime > gapStart)
+				gapEnds[i] = startTime;
+			else if(startTime + duration < gapEnd)
+				gapStarts[i] = startTime + duration;
+			else {
+				System.arraycopy(gapStarts, i + 1, gapStarts, i, end - i - 1);
+				System.arraycopy(gapEnds, i + 1, gapEnds, i, end - i - 1);
+				gapCounts[machine]--;
+			}
+			return startTime;
+		}
+		return -1;
+	}
+}
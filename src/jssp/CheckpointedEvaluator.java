@@ -0,0 +1,148 @@
+package jssp;
+
+import java.util.Arrays;
+
+/**
+ * Computes the makespan of successive complete orders of operations (decoded semi-actively), replaying only what changed.
+ * While evaluating a schedule, the evaluator saves the ready times of jobs and machines every interval operations.
+ * When the next schedule only differs from position k on, evaluation restarts from the last checkpoint before k, so
+ * changes late in the order are nearly free. Callers give k, which they usually know from building the order (e.g. the
+ * first step at which a decoder chose a different operation), so the evaluator doesn't compare orders.
+ * An evaluator owns its buffers, it should not be shared between threads.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class CheckpointedEvaluator {
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Number of operations between two checkpoints
+	private int interval;
+	
+	// Number of operations in a schedule
+	private int length;
+	
+	// Whether a schedule was evaluated, and the first position that changed since then in orders that weren't evaluated
+	private boolean evaluated;
+	private int changedFrom;
+	
+	// Current state: index (within its job) of the next operation of each job, ready times of jobs and machines, makespan
+	private int[] nextOperationInJob;
+	private int[] jobTimes, machineTimes;
+	private int makespan;
+	
+	// State before operation c * interval, stored at index c * snapshotSize
+	private int[] snapshots;
+	private int snapshotSize;
+	
+	/**
+	 * Create an evaluator for a given problem instance.
+	 * @param pb - A problem instance
+	 * @param interval - The number of operations between two checkpoints
+	 */
+	public CheckpointedEvaluator(ProblemInstance pb, int interval) {
+		if(interval <= 0)
+			throw new IllegalArgumentException("The checkpoint interval must be positive");
+		
+		this.pb = pb;
+		this.interval = interval;
+		
+		int n = pb.getTotalOperations();
+		length = n;
+		changedFrom = n;
+		nextOperationInJob = new int[pb.getNumberOfJobs()];
+		jobTimes = new int[pb.getNumberOfJobs()];
+		machineTimes = new int[pb.getNumberOfMachines()];
+		
+		snapshotSize = 2 * pb.getNumberOfJobs() + pb.getNumberOfMachines() + 1;
+		snapshots = new int[(n / interval + 1) * snapshotSize];
+	}
+	
+	/**
+	 * Calculate the makespan of a complete order of operations that only differs from the previous order given to this
+	 * evaluator from a given position on.
+	 * @param operationOrder - A complete order of operations
+	 * @param firstDifference - A position before which the order has the same jobs as the previous order given to this
+	 * evaluator, evaluated or not (0 if unknown, the length of the order if both orders are the same)
+	 * @return the makespan
+	 */
+	public int reevaluate(int[] operationOrder, int firstDifference) {
+		firstDifference = Math.min(firstDifference, changedFrom);
+		changedFrom = length;
+		if(!evaluated)
+			firstDifference = 0;
+		if(firstDifference >= length)
+			return makespan;
+		
+		// Restore the last checkpoint before the first difference, and replay the rest of the schedule from there
+		int[] nextOperationInJob = this.nextOperationInJob, jobTimes = this.jobTimes, machineTimes = this.machineTimes;
+		int first = firstDifference / interval;
+		restore(first);
+		for(int checkpoint = first; checkpoint * interval < length; checkpoint++) {
+			if(checkpoint > first)
+				save(checkpoint);
+			
+			// Replay the operations up to the next checkpoint
+			int end = Math.min(length, (checkpoint + 1) * interval);
+			int makespan = this.makespan;
+			for(int i = checkpoint * interval; i < end; i++) {
+				int job = pb.getJob(operationOrder[i]);
+				int operation = pb.getOperationIndex(job, nextOperationInJob[job]++);
+				int machine = pb.getMachine(operation);
+				int endTime = Math.max(jobTimes[job], machineTimes[machine]) + pb.getDuration(operation);
+				
+				machineTimes[machine] = endTime;
+				jobTimes[job] = endTime;
+				if(endTime > makespan)
+					makespan = endTime;
+			}
+			this.makespan = makespan;
+		}
+		
+		evaluated = true;
+		return makespan;
+	}
+	
+	/**
+	 * Record that an order of operations was given without being evaluated by this evaluator (e.g. its makespan was cached),
+	 * so that the next evaluation also replays the positions it changed.
+	 * @param firstDifference - A position before which the order has the same jobs as the previous order given to this
+	 * evaluator (0 if unknown)
+	 */
+	public void skip(int firstDifference) {
+		changedFrom = Math.min(changedFrom, firstDifference);
+	}
+	
+	/**
+	 * Save the current state as a checkpoint.
+	 * @param checkpoint - The index of the checkpoint
+	 */
+	private void save(int checkpoint) {
+		int at = checkpoint * snapshotSize;
+		int jobs = nextOperationInJob.length;
+		System.arraycopy(nextOperationInJob, 0, snapshots, at, jobs);
+		System.arraycopy(jobTimes, 0, snapshots, at + jobs, jobs);
+		System.arraycopy(machineTimes, 0, snapshots, at + 2 * jobs, machineTimes.length);
+		snapshots[at + snapshotSize - 1] = makespan;
+	}
+	
+	/**
+	 * Restore the state saved in a checkpoint (the first checkpoint is the empty schedule).
+	 * @param checkpoint - The index of the checkpoint
+	 */
+	private void restore(int checkpoint) {
+		if(checkpoint == 0) {
+			Arrays.fill(nextOperationInJob, 0);
+			Arrays.fill(jobTimes, 0);
+			Arrays.fill(machineTimes, 0);
+			makespan = 0;
+			return;
+		}
+		
+		int at = checkpoint * snapshotSize;
+		int jobs = nextOperationInJob.length;
+		System.arraycopy(snapshots, at, nextOperationInJob, 0, jobs);
+		System.arraycopy(snapshots, at + jobs, jobTimes, 0, jobs);
+		System.arraycopy(snapshots, at + 2 * jobs, machineTimes, 0, machineTimes.length);
+		makespan = snapshots[at + snapshotSize - 1];
+	}
+}
@@ -0,0 +1,471 @@
+package jssp;
+
+import java.util.Arrays;
+
+/**
+ * Disjunctive graph of a schedule: operations are nodes, with arcs from each operation to its successor in its job and to its
+ * successor on its machine. The order of the operations on each machine defines the schedule.
+ * Keeps the head (earliest start time) and tail (longest time from completion to the end of the schedule) of each operation,
+ * from which the makespan and critical paths are derived. After a move on a machine, only the heads of the operations after it
+ * and the tails of the operations before it are updated.
+ * An instance owns its buffers, it should not be shared between threads.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class DisjunctiveGraph {
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Operations of each machine in processing order (machine k uses cells [machineOffsets[k], machineOffsets[k+1]))
+	private int[] machineOrder;
+	private int[] machineOffsets;
+	
+	// Position of each operation in machineOrder
+	private int[] positions;
+	
+	// Head and tail of each operation
+	private int[] heads, tails;
+	
+	// The makespan of the schedule
+	private int makespan;
+	
+	// Buffers used for topological traversals
+	private int[] topologicalOrder, inDegrees, stack;
+	
+	// Marks of the operations visited by the current update (an operation is visited if its mark equals the current stamp)
+	private int[] marks;
+	private int stamp;
+	
+	// Buffer used to reorder a segment of a machine
+	private int[] segment;
+	
+	/**
+	 * Create a disjunctive graph for a given problem instance. A schedule must be loaded before the graph is used.
+	 * @param pb - A problem instance
+	 */
+	public DisjunctiveGraph(ProblemInstance pb) {
+		this.pb = pb;
+		
+		int n = pb.getTotalOperations();
+		machineOrder = new int[n];
+		machineOffsets = new int[pb.getNumberOfMachines() + 1];
+		positions = new int[n];
+		heads = new int[n];
+		tails = new int[n];
+		topologicalOrder = new int[n];
+		inDegrees = new int[n];
+		stack = new int[n];
+		marks = new int[n];
+		segment = new int[n];
+		
+		// The number of operations on each machine only depends on the problem instance
+		for(int op = 0; op < n; op++)
+			machineOffsets[pb.getMachine(op) + 1]++;
+		for(int k = 0; k < pb.getNumberOfMachines(); k++)
+			machineOffsets[k+1] += machineOffsets[k];
+	}
+	
+	/**
+	 * Build the graph of the schedule given by an order of operations.
+	 * @param operationOrder - A complete order of operations
+	 */
+	public void load(int[] operationOrder) {
+		int[] nextInJob = new int[pb.getNumberOfJobs()];
+		int[] nextOnMachine = Arrays.copyOf(machineOffsets, pb.getNumberOfMachines());
+		for(int i = 0; i < operationOrder.length; i++) {
+			int job = pb.getJob(operationOrder[i]);
+			int op = pb.getOperationIndex(job, nextInJob[job]++);
+			int position = nextOnMachine[pb.getMachine(op)]++;
+			machineOrder[position] = op;
+			positions[op] = position;
+		}
+		update();
+	}
+	
+	/**
+	 * Build the graph of the schedule given by the order of the operations on each machine.
+	 * @param machineOrder - Operations of each machine in processing order, machine after machine (as given by getMachineOrder)
+	 * @return false if the schedule is not feasible (its graph has a cycle)
+	 */
+	public boolean setMachineOrder(int[] machineOrder) {
+		System.arraycopy(machineOrder, 0, this.machineOrder, 0, machineOrder.length);
+		for(int i = 0; i < machineOrder.length; i++)
+			positions[machineOrder[i]] = i;
+		return update();
+	}
+	
+	/**
+	 * Get the order of the operations on each machine.
+	 * @return operations of each machine in processing order, machine after machine (owned by this graph)
+	 */
+	public int[] getMachineOrder() {
+		return machineOrder;
+	}
+	
+	/**
+	 * Get an order of operations giving this schedule, i.e. the operations sorted by start time.
+	 * @return a new array of actual operation indices in running order
+	 */
+	public int[] toOperationOrder() {
+		// Sort by head, and break ties with a topological order so that the order respects all arcs
+		computeTopologicalOrder();
+		long[] keys = new long[heads.length];
+		for(int i = 0; i < heads.length; i++)
+			keys[i] = ((long) heads[topologicalOrder[i]] << 32) | i;
+		Arrays.sort(keys);
+		
+		int[] order = new int[keys.length];
+		for(int i = 0; i < keys.length; i++)
+			order[i] = topologicalOrder[(int) keys[i]];
+		return order;
+	}
+	
+	/**
+	 * Get the makespan of the schedule.
+	 * @return the makespan
+	 */
+	public int getMakespan() {
+		return makespan;
+	}
+	
+	/**
+	 * Get the head of an operation.
+	 * @param op - An operation index
+	 * @return the earliest start time of the operation
+	 */
+	public int getHead(int op) {
+		return heads[op];
+	}
+	
+	/**
+	 * Get the tail of an operation.
+	 * @param op - An operation index
+	 * @return the length of the longest path from the end of the operation to the end of the schedule
+	 */
+	public int getTail(int op) {
+		return tails[op];
+	}
+	
+	/**
+	 * Check whether an operation is on a critical path.
+	 * @param op - An operation index
+	 * @return true if the head, duration and tail of the operation add up to the makespan
+	 */
+	public boolean isCritical(int op) {
+		return heads[op] + pb.getDuration(op) + tails[op] == makespan;
+	}
+	
+	/**
+	 * Get the position of an operation in the machine order.
+	 * @param op - An operation index
+	 * @return an index in the array returned by getMachineOrder
+	 */
+	public int getPosition(int op) {
+		return positions[op];
+	}
+	
+	/**
+	 * Get the operation at a given position of the machine order.
+	 * @param position - An index in the array returned by getMachineOrder
+	 * @return an operation index
+	 */
+	public int getOperationAt(int position) {
+		return machineOrder[position];
+	}
+	
+	/**
+	 * Get the operation that precedes an operation in its job.
+	 * @param op - An operation index
+	 * @return an operation index, or -1 if the operation is the first of its job
+	 */
+	public int getJobPredecessor(int op) {
+		return pb.getPositionInJob(op) == 0 ? -1 : op - 1;
+	}
+	
+	/**
+	 * Get the operation that follows an operation in its job.
+	 * @param op - An operation index
+	 * @return an operation index, or -1 if the operation is the last of its job
+	 */
+	public int getJobSuccessor(int op) {
+		return pb.getPositionInJob(op) == pb.getNumberOfOperations(pb.getJob(op)) - 1 ? -1 : op + 1;
+	}
+	
+	/**
+	 * Get the operation processed just before an operation on its machine.
+	 * @param op - An operation index
+	 * @return an operation index, or -1 if the operation is the first on its machine
+	 */
+	public int getMachinePredecessor(int op) {
+		int p = positions[op];
+		return p == machineOffsets[pb.getMachine(op)] ? -1 : machineOrder[p - 1];
+	}
+	
+	/**
+	 * Get the operation processed just after an operation on its machine.
+	 * @param op - An operation index
+	 * @return an operation index, or -1 if the operation is the last on its machine
+	 */
+	public int getMachineSuccessor(int op) {
+		int p = positions[op];
+		return p == machineOffsets[pb.getMachine(op) + 1] - 1 ? -1 : machineOrder[p + 1];
+	}
+	
+	/**
+	 * Find a critical path of the schedule. Machine arcs are preferred, so that critical blocks are as long as possible.
+	 * @param out - An array (of length at least the number of operations) in which the path is written
+	 * @return the number of operations on the path
+	 */
+	public int findCriticalPath(int[] out) {
+		// Start from the first critical operation that starts at time 0
+		int op = 0;
+		while(heads[op] != 0 || !isCritical(op))
+			op++;
+		
+		int length = 0;
+		while(op >= 0) {
+			out[length++] = op;
+			int end = heads[op] + pb.getDuration(op);
+			int ms = getMachineSuccessor(op), js = getJobSuccessor(op);
+			if(ms >= 0 && heads[ms] == end && isCritical(ms))
+				op = ms;
+			else if(js >= 0 && heads[js] == end && isCritical(js))
+				op = js;
+			else
+				op = -1;
+		}
+		return length;
+	}
+	
+	/**
+	 * Move an operation to another position on its machine, and update the heads and tails.
+	 * The operations in between are shifted by one position.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to (on the same machine)
+	 * @return false if the move would create a cycle (the graph is then left unchanged)
+	 */
+	public boolean move(int from, int to) {
+		int start = Math.min(from, to), end = Math.max(from, to);
+		reorder(from, to);
+		
+		if(!updateHeads(start, end)) {
+			reorder(to, from);
+			updateHeads(start, end);
+			return false;
+		}
+		updateTails(start, end);
+		updateMakespan();
+		return true;
+	}
+	
+	/**
+	 * Write the operations between two positions of the machine order in the order they would have after a move.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to
+	 * @param out - An array in which the operations are written, from index 0
+	 * @return the number of operations written
+	 */
+	public int getReorderedSegment(int from, int to, int[] out) {
+		int length = 0;
+		if(from < to) {
+			for(int p = from + 1; p <= to; p++)
+				out[length++] = machineOrder[p];
+			out[length++] = machineOrder[from];
+		}
+		else {
+			out[length++] = machineOrder[from];
+			for(int p = to; p < from; p++)
+				out[length++] = machineOrder[p];
+		}
+		return length;
+	}
+	
+	/**
+	 * Move an operation within its machine, without updating heads and tails.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to
+	 */
+	private void reorder(int from, int to) {
+		int start = Math.min(from, to);
+		int length = getReorderedSegment(from, to, segment);
+		for(int i = 0; i < length; i++) {
+			machineOrder[start + i] = segment[i];
+			positions[segment[i]] = start + i;
+		}
+	}
+	
+	/**
+	 * Recompute the heads of the operations reachable from a reordered segment of a machine.
+	 * @param start - The first position of the segment
+	 * @param end - The last position of the segment
+	 * @return false if the graph has a cycle
+	 */
+	private boolean updateHeads(int start, int end) {
+		// Mark the operations reachable from the segment (and from the operation after it)
+		stamp++;
+		int count = 0, top = 0;
+		int last = Math.min(end + 1, machineOffsets[pb.getMachine(machineOrder[start]) + 1] - 1);
+		for(int p = start; p <= last; p++)
+			top = push(machineOrder[p], top);
+		while(top > 0) {
+			int op = stack[--top];
+			topologicalOrder[count++] = op;
+			int js = getJobSuccessor(op), ms = getMachineSuccessor(op);
+			if(js >= 0)
+				top = push(js, top);
+			if(ms >= 0)
+				top = push(ms, top);
+		}
+		
+		// Kahn's algorithm on the marked operations (predecessors that aren't marked keep their head)
+		int ready = 0;
+		for(int i = 0; i < count; i++) {
+			int op = topologicalOrder[i];
+			int jp = getJobPredecessor(op), mp = getMachinePredecessor(op);
+			inDegrees[op] = (jp >= 0 && marks[jp] == stamp ? 1 : 0) + (mp >= 0 && marks[mp] == stamp ? 1 : 0);
+			if(inDegrees[op] == 0)
+				stack[ready++] = op;
+		}
+		int processed = 0;
+		while(ready > 0) {
+			int op = stack[--ready];
+			processed++;
+			heads[op] = computeHead(op);
+			int js = getJobSuccessor(op), ms = getMachineSuccessor(op);
+			if(js >= 0 && --inDegrees[js] == 0)
+				stack[ready++] = js;
+			if(ms >= 0 && --inDegrees[ms] == 0)
+				stack[ready++] = ms;
+		}
+		return processed == count;
+	}
+	
+	/**
+	 * Recompute the tails of the operations that can reach a reordered segment of a machine (the graph must have no cycle).
+	 * @param start - The first position of the segment
+	 * @param end - The last position of the segment
+	 */
+	private void updateTails(int start, int end) {
+		// Mark the operations that can reach the segment (or the operation before it)
+		stamp++;
+		int count = 0, top = 0;
+		int first = Math.max(start - 1, machineOffsets[pb.getMachine(machineOrder[start])]);
+		for(int p = first; p <= end; p++)
+			top = push(machineOrder[p], top);
+		while(top > 0) {
+			int op = stack[--top];
+			topologicalOrder[count++] = op;
+			int jp = getJobPredecessor(op), mp = getMachinePredecessor(op);
+			if(jp >= 0)
+				top = push(jp, top);
+			if(mp >= 0)
+				top = push(mp, top);
+		}
+		
+		// Kahn's algorithm on the marked operations, in reverse
+		int ready = 0;
+		for(int i = 0; i < count; i++) {
+			int op = topologicalOrder[i];
+			int js = getJobSuccessor(op), ms = getMachineSuccessor(op);
+			inDegrees[op] = (js >= 0 && marks[js] == stamp ? 1 : 0) + (ms >= 0 && marks[ms] == stamp ? 1 : 0);
+			if(inDegrees[op] == 0)
+				stack[ready++] = op;
+		}
+		while(ready > 0) {
+			int op = stack[--ready];
+			tails[op] = computeTail(op);
+			int jp = getJobPredecessor(op), mp = getMachinePredecessor(op);
+			if(jp >= 0 && --inDegrees[jp] == 0)
+				stack[ready++] = jp;
+			if(mp >= 0 && --inDegrees[mp] == 0)
+				stack[ready++] = mp;
+		}
+	}
+	
+	/**
+	 * Mark an operation and push it on the traversal stack, unless it is already marked.
+	 * @param op - An operation index
+	 * @param top - The current size of the stack
+	 * @return the new size of the stack
+	 */
+	private int push(int op, int top) {
+		if(marks[op] != stamp) {
+			marks[op] = stamp;
+			stack[top++] = op;
+		}
+		return top;
+	}
+	
+	/**
+	 * Recompute all heads and tails, and the makespan.
+	 * @return false if the graph has a cycle
+	 */
+	private boolean update() {
+		if(!computeTopologicalOrder())
+			return false;
+		
+		int n = topologicalOrder.length;
+		for(int i = 0; i < n; i++)
+			heads[topologicalOrder[i]] = computeHead(topologicalOrder[i]);
+		for(int i = n - 1; i >= 0; i--)
+			tails[topologicalOrder[i]] = computeTail(topologicalOrder[i]);
+		updateMakespan();
+		return true;
+	}
+	
+	/**
+	 * Compute a topological order of all operations (Kahn's algorithm).
+	 * @return false if the graph has a cycle
+	 */
+	private boolean computeTopologicalOrder() {
+		int n = topologicalOrder.length;
+		int count = 0;
+		for(int op = 0; op < n; op++) {
+			inDegrees[op] = (getJobPredecessor(op) < 0 ? 0 : 1) + (getMachinePredecessor(op) < 0 ? 0 : 1);
+			if(inDegrees[op] == 0)
+				topologicalOrder[count++] = op;
+		}
+		for(int i = 0; i < count; i++) {
+			int op = topologicalOrder[i];
+			int js = getJobSuccessor(op), ms = getMachineSuccessor(op);
+			if(js >= 0 && --inDegrees[js] == 0)
+				topologicalOrder[count++] = js;
+			if(ms >= 0 && --inDegrees[ms] == 0)
+				topologicalOrder[count++] = ms;
+		}
+		return count == n;
+	}
+	
+	/**
+	 * Compute the makespan from the last operation of each job.
+	 */
+	private void updateMakespan() {
+		makespan = 0;
+		for(int job = 0; job < pb.getNumberOfJobs(); job++) {
+			int n = pb.getNumberOfOperations(job);
+			if(n > 0) {
+				int last = pb.getOperationIndex(job, n - 1);
+				makespan = Math.max(makespan, heads[last] + pb.getDuration(last));
+			}
+		}
+	}
+	
+	/**
+	 * Compute the head of an operation from the heads of its job and machine predecessors.
+	 * @param op - An operation index
+	 * @return the head of the operation (0 if it has no predecessor)
+	 */
+	private int computeHead(int op) {
+		int jp = getJobPredecessor(op), mp = getMachinePredecessor(op);
+		return Math.max(jp < 0 ? 0 : heads[jp] + pb.getDuration(jp), mp < 0 ? 0 : heads[mp] + pb.getDuration(mp));
+	}
+	
+	/**
+	 * Compute the tail of an operation from the tails of its job and machine successors.
+	 * @param op - An operation index
+	 * @return the tail of the operation (0 if it has no successor)
+	 */
+	private int computeTail(int op) {
+		int js = getJobSuccessor(op), ms = getMachineSuccessor(op);
+		return Math.max(js < 0 ? 0 : tails[js] + pb.getDuration(js), ms < 0 ? 0 : tails[ms] + pb.getDuration(ms));
+	}
+}
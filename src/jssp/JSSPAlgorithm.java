@@ -1,6 +1,8 @@
 package jssp;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import utils.GanttChart;
 
@@ -9,19 +11,42 @@ import utils.GanttChart;
  * @author Kelian Baert & Caroline de Pourtales
  */
 public abstract class JSSPAlgorithm {
+	// Decoding modes: each operation starts after the last operation of its machine, or in the earliest idle interval that holds it
+	public static final String SEMI_ACTIVE = "semi-active";
+	public static final String ACTIVE = "active";
+	
 	// The problem instance this algorithm operates on
 	private ProblemInstance problemInstance;
 	
-	// A random generator
-	private Random random;
+	// A random generator (not synchronized, only used by the thread running this algorithm)
+	private RandomSource random;
+	
+	// Maximum number of tasks of an iteration run at the same time (1 when iterations run on the calling thread only)
+	private int innerThreads = 1;
+	
+	// Decoder of each thread computing makespans, when schedules are decoded as active schedules (null otherwise)
+	private ThreadLocal<ActiveScheduleDecoder> activeDecoders;
+	
+	// Cache of the makespans of complete schedules (null if disabled), and its capacity
+	private MakespanCache makespanCache;
+	private int makespanCacheSize;
 	
 	/**
 	 * Init the algorithm.
 	 * @param problemInstance - A JSSP problem instance
+	 * @param random - The random generator of this algorithm
 	 */
-	public JSSPAlgorithm(ProblemInstance problemInstance) {
+	public JSSPAlgorithm(ProblemInstance problemInstance, RandomSource random) {
 		this.problemInstance = problemInstance;
-		this.random = new Random();
+		this.random = random;
+	}
+	
+	/**
+	 * Init the algorithm with a default random generator.
+	 * @param problemInstance - A JSSP problem instance
+	 */
+	public JSSPAlgorithm(ProblemInstance problemInstance) {
+		this(problemInstance, RandomSource.create(null));
 	}
 	
 	/**
@@ -44,7 +69,17 @@ public abstract class JSSPAlgorithm {
 	 * Get the best order of operations found by this algorithm.
 	 * @return an array of operation indices to run in order
 	 */
-	public abstract Integer[] getBestSolution();
+	public abstract int[] getBestSchedule();
+	
+	/**
+	 * Get the best order of operations found by this algorithm, as boxed integers.
+	 * @return an array of operation indices to run in order
+	 * @deprecated use {@link #getBestSchedule()}
+	 */
+	@Deprecated
+	public Integer[] getBestSolution() {
+		return toBoxedSchedule(getBestSchedule());
+	}
 	
 	/**
 	 * Get the best makespan found by the algorithm. Corresponds to the solution returned by getBestSolution().
@@ -52,6 +87,12 @@ public abstract class JSSPAlgorithm {
 	 */
 	public abstract int getBestOverallMakespan();
 	
+	/**
+	 * Inject a solution found elsewhere (e.g. by another algorithm instance) into this algorithm's population.
+	 * @param schedule - A complete order of operations, using actual operation indices (see normalizeSchedule)
+	 */
+	public abstract void injectSolution(int[] schedule);
+	
 	/**
 	 * Get a random float in [0,1[ using this algorithm instance's random generator.
 	 * @return a random float between 0 (inclusive) and 1 (exclusive)
@@ -60,11 +101,84 @@ public abstract class JSSPAlgorithm {
 		return getRandom().nextFloat();
 	}
 	
+	/**
+	 * Set the number of threads used to parallelize the work inside an iteration (e.g. the construction of ants).
+	 * The work runs on the common ForkJoinPool, which is sized to the machine and shared by all algorithm instances,
+	 * so this only bounds how many of its threads an iteration uses.
+	 * @param threads - 1 to run iterations on the calling thread only, 0 to use the number of available processors
+	 */
+	public void setInnerThreads(int threads) {
+		innerThreads = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+	}
+	
+	/**
+	 * Set how orders of operations are decoded into schedules.
+	 * @param decoding - "semi-active" (default) or "active" (operations can fill idle intervals left on their machine)
+	 */
+	public void setDecoding(String decoding) {
+		if(decoding.equals(ACTIVE))
+			activeDecoders = ThreadLocal.withInitial(() -> new ActiveScheduleDecoder(problemInstance));
+		else if(decoding.equals(SEMI_ACTIVE))
+			activeDecoders = null;
+		else
+			throw new IllegalArgumentException("Unknown decoding '" + decoding + "'");
+		
+		// Fingerprints depend on the decoding
+		setMakespanCacheSize(makespanCacheSize);
+	}
+	
+	/**
+	 * Set the number of makespans of complete schedules kept in cache, so that schedules evaluated again are not decoded.
+	 * Clears the cache.
+	 * @param size - A number of entries (0 to disable the cache)
+	 */
+	public void setMakespanCacheSize(int size) {
+		makespanCacheSize = size;
+		makespanCache = size > 0 ? new MakespanCache(problemInstance, size, !isActiveDecoding()) : null;
+	}
+	
+	/**
+	 * Get the cache of the makespans of complete schedules.
+	 * @return the cache, or null if it is disabled
+	 */
+	public MakespanCache getMakespanCache() {
+		return makespanCache;
+	}
+	
+	/**
+	 * Check whether orders of operations are decoded into active schedules.
+	 * @return true for active schedules, false for semi-active schedules
+	 */
+	public boolean isActiveDecoding() {
+		return activeDecoders != null;
+	}
+	
+	/**
+	 * Run a task for each index in [0,n[, in parallel if inner threads are enabled.
+	 * Tasks must be independent: they must not use this algorithm's random generator, nor modify shared state.
+	 * @param n - The number of tasks
+	 * @param task - A task, taking an index as parameter
+	 */
+	public void forEachIndex(int n, IntConsumer task) {
+		int chunks = Math.min(innerThreads, n);
+		if(chunks <= 1) {
+			for(int i = 0; i < n; i++)
+				task.accept(i);
+		}
+		else {
+			// Split the indices into one contiguous chunk per thread, run on the common pool
+			IntStream.range(0, chunks).parallel().forEach((c) -> {
+				for(int i = c * n / chunks; i < (c + 1) * n / chunks; i++)
+					task.accept(i);
+			});
+		}
+	}
+	
 	/**
 	 * Get the random generator used by this algorithm.
 	 * @return a random generator
 	 */
-	public Random getRandom() {
+	public RandomSource getRandom() {
 		return random;
 	}
 	
@@ -79,11 +193,16 @@ public abstract class JSSPAlgorithm {
 	/**
 	 * Calculates the makespan for a given order of operations.
 	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @param length - The number of operations to consider, from the start of the array (allows incomplete schedules)
+	 * @return the makespan
 	 */
-	public int computeMakespan(Integer[] operationOrder) {
+	public int computeMakespan(int[] operationOrder, int length) {
+		if(activeDecoders != null)
+			return activeDecoders.get().decode(operationOrder, length, null);
+		
 		ProblemInstance pb = getProblemInstance();
 		
-		int machines = pb.getOperationsPerJob();
+		int machines = pb.getNumberOfMachines();
 
 		// Store the current operation index for each job
 		int[] currentOperationIndices = new int[pb.getNumberOfJobs()]; 
@@ -96,15 +215,12 @@ public abstract class JSSPAlgorithm {
 		
 		int makespan = 0;
 	
-		for(Integer operationIndex : operationOrder) {
-			// Allow incomplete schedules
-			if(operationIndex == null)
-				break;
-			
-			int job = operationIndex / pb.getOperationsPerJob();
+		for(int i = 0; i < length; i++) {
+			int job = pb.getJob(operationOrder[i]);
 			int operationInJob = currentOperationIndices[job];
-			int machine = pb.getMachine(job, operationInJob);
-			int duration = pb.getDuration(job, operationInJob);
+			int operation = pb.getOperationIndex(job, operationInJob);
+			int machine = pb.getMachine(operation);
+			int duration = pb.getDuration(operation);
 			
 			int operationStartTime = Math.max(jobTimes[job], machineTimes[machine]);
 			int endTime = operationStartTime + duration;
@@ -122,59 +238,120 @@ public abstract class JSSPAlgorithm {
 	}
 	
 	/**
-	 * Calculate the amount of time wasted by a machine when adding the given operation to a given schedule.
+	 * Calculates the makespan for a given (complete) order of operations.
 	 * @param operationOrder - An array containing the indices of the operations to run
-	 * @param addedOperation - An operation index
-	 * @return the added inactivity time for the machine that executes the given operation.
+	 * @return the makespan
 	 */
-	public int getInducedGap(Integer[] operationOrder, int addedOperation) {
-		ProblemInstance pb = getProblemInstance();
-		
-		int machines = pb.getOperationsPerJob();
-
-		// Store the current operation index for each job
-		int[] currentOperationIndices = new int[pb.getNumberOfJobs()]; 
+	public int computeMakespan(int[] operationOrder) {
+		return computeMakespan(operationOrder, operationOrder.length);
+	}
+	
+	/**
+	 * Calculates the makespan for a given (complete) order of operations, unless it is in the makespan cache.
+	 * Can be called by several threads at once.
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @return the makespan
+	 */
+	public int evaluateMakespan(int[] operationOrder) {
+		return evaluateMakespan(operationOrder, 0, null);
+	}
+	
+	/**
+	 * Calculates the makespan for a given (complete) order of operations, unless it is in the makespan cache.
+	 * With semi-active decoding, an evaluator can be given to only replay the end of the order that changed since the
+	 * previous order given to it.
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @param firstDifference - A position before which the order is the same as the previous order given to the evaluator
+	 * (0 if unknown)
+	 * @param evaluator - The evaluator of the calling thread, or null
+	 * @return the makespan
+	 */
+	public int evaluateMakespan(int[] operationOrder, int firstDifference, CheckpointedEvaluator evaluator) {
+		if(makespanCache == null)
+			return computeMakespan(operationOrder, firstDifference, evaluator);
 		
-		// Store current time for each machine
-		int[] machineTimes = new int[machines];
-				
-		// Store current time of each job
-		int[] jobTimes = new int[pb.getNumberOfJobs()];
+		long key = makespanCache.fingerprint(operationOrder);
+		int makespan = makespanCache.get(key);
+		if(makespan >= 0 && evaluator != null)
+			evaluator.skip(firstDifference);
+		if(makespan < 0) {
+			makespan = computeMakespan(operationOrder, firstDifference, evaluator);
+			makespanCache.put(key, makespan);
+		}
+		return makespan;
+	}
 	
-		for(Integer operationIndex : operationOrder) {
-			// Allow incomplete schedules
-			boolean isLast = operationIndex == null;
-			if(isLast)
-				operationIndex = addedOperation;
-			
-			int job = operationIndex / pb.getOperationsPerJob();
-			int operationInJob = currentOperationIndices[job];
-			int machine = pb.getMachine(job, operationInJob);
-			int duration = pb.getDuration(job, operationInJob);
-			
-			int operationStartTime = Math.max(jobTimes[job], machineTimes[machine]);
-			int endTime = operationStartTime + duration;
-			
-			if(isLast)
-				return operationStartTime - machineTimes[machine];
+	/**
+	 * Calculates the makespan for a given (complete) order of operations, with a checkpointed evaluator if possible.
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @param firstDifference - A position before which the order is the same as the previous order given to the evaluator
+	 * @param evaluator - An evaluator, or null
+	 * @return the makespan
+	 */
+	private int computeMakespan(int[] operationOrder, int firstDifference, CheckpointedEvaluator evaluator) {
+		// Checkpoints only hold the ready times of jobs and machines, which is the state of semi-active decoding
+		if(evaluator == null || isActiveDecoding())
+			return computeMakespan(operationOrder);
+		return evaluator.reevaluate(operationOrder, firstDifference);
+	}
+	
+	/**
+	 * Get the same schedule as a given order of operations, using the actual index of each operation.
+	 * Since only the job of each operation is used when decoding, the k-th occurrence of a job is replaced by its k-th operation.
+	 * With active decoding, operations are also sorted by start time, so that the order gives a schedule at least as good
+	 * when decoded semi-actively (e.g. by another algorithm or by the tabu search).
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @return a new array containing actual operation indices in running order
+	 */
+	public int[] normalizeSchedule(int[] operationOrder) {
+		ProblemInstance pb = getProblemInstance();
+		int[] currentOperationIndices = new int[pb.getNumberOfJobs()];
+		int[] normalized = new int[operationOrder.length];
+		for(int i = 0; i < operationOrder.length; i++) {
+			int job = pb.getJob(operationOrder[i]);
+			normalized[i] = pb.getOperationIndex(job, currentOperationIndices[job]++);
+		}
+		
+		if(activeDecoders != null) {
+			int[] startTimes = new int[pb.getTotalOperations()];
+			activeDecoders.get().decode(normalized, normalized.length, startTimes);
 			
-			machineTimes[machine] = endTime;
-			jobTimes[job] = endTime;
+			// Sort by start time, keeping the current order for ties
+			long[] keys = new long[normalized.length];
+			for(int i = 0; i < normalized.length; i++)
+				keys[i] = ((long) startTimes[normalized[i]] << 32) | i;
+			Arrays.sort(keys);
 			
-			currentOperationIndices[job]++;
+			int[] sorted = new int[normalized.length];
+			for(int i = 0; i < keys.length; i++)
+				sorted[i] = normalized[(int) keys[i]];
+			normalized = sorted;
 		}
-	
-		return 0;
+		return normalized;
 	}
 	
 	/**
 	 * Calculates the makespan for a given order of operations.
+	 * @param operationOrder - An array containing the indices of the operations to run, null-terminated if incomplete
+	 * @return the makespan
+	 * @deprecated use {@link #computeMakespan(int[], int)}
+	 */
+	@Deprecated
+	public int computeMakespan(Integer[] operationOrder) {
+		return computeMakespan(toSchedule(operationOrder));
+	}
+	
+	/**
+	 * Calculate the amount of time wasted by a machine when adding the given operation to a given schedule.
 	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @param length - The number of operations in the schedule, from the start of the array
+	 * @param addedOperation - An operation index
+	 * @return the added inactivity time for the machine that executes the given operation.
 	 */
-	/*public int computeMakespanWithLocalSearch(Integer[] operationOrder) {
+	public int getInducedGap(int[] operationOrder, int length, int addedOperation) {
 		ProblemInstance pb = getProblemInstance();
 		
-		int machines = pb.getOperationsPerJob();
+		int machines = pb.getNumberOfMachines();
 
 		// Store the current operation index for each job
 		int[] currentOperationIndices = new int[pb.getNumberOfJobs()]; 
@@ -184,70 +361,57 @@ public abstract class JSSPAlgorithm {
 				
 		// Store current time of each job
 		int[] jobTimes = new int[pb.getNumberOfJobs()];
-		
-		int makespan = 0;
-		
-		@SuppressWarnings("unchecked")
-		List<Integer[]>[] emptySlots = new ArrayList[pb.getOperationsPerJob()];
-		for(int i = 0; i < pb.getOperationsPerJob(); i++)
-			emptySlots[i] = new ArrayList<Integer[]>();
-	
-		for(Integer operationIndex : operationOrder) {
-			// Allow incomplete schedules
-			if(operationIndex == null)
-				break;
-			
-			int job = operationIndex / pb.getOperationsPerJob();
-			int operationInJob = currentOperationIndices[job];
-			int machine = pb.getMachine(job, operationInJob);
-			int duration = pb.getDuration(job, operationInJob);
-			
-			int earliestMachineTime = machineTimes[machine];
-			
-			// Try to find an empty slot if possible
-			for(int i = 0; i < emptySlots[machine].size(); i++) {
-				int slotTime = emptySlots[machine].get(i)[0], slotDuration = emptySlots[machine].get(i)[1]; 
-				int startTime = (slotTime < jobTimes[job] && jobTimes[job] < slotTime + slotDuration) ? jobTimes[job] : slotTime;
-					
-				if(startTime >= jobTimes[job] && slotDuration - (startTime - slotTime) >= duration) {
-					earliestMachineTime = startTime;
-					if(startTime > slotTime)
-						emptySlots[machine].add(new Integer[] {slotTime, startTime - slotTime});
-					if(slotDuration - (startTime - slotTime) > duration)
-						emptySlots[machine].add(new Integer[] {startTime + duration, slotDuration - (startTime - slotTime) - duration});
-					
-					emptySlots[machine].remove(i);
-					break;
-				}
-			}
-			
-			int operationStartTime = Math.max(jobTimes[job], earliestMachineTime);
-			int endTime = operationStartTime + duration;
-			
-			if(operationStartTime > machineTimes[machine])
-				emptySlots[machine].add(new Integer[] {machineTimes[machine], operationStartTime - machineTimes[machine]});
+	
+		for(int i = 0; i < length; i++) {
+			int job = pb.getJob(operationOrder[i]);
+			int operation = pb.getOperationIndex(job, currentOperationIndices[job]);
+			int machine = pb.getMachine(operation);
+			int endTime = Math.max(jobTimes[job], machineTimes[machine]) + pb.getDuration(operation);
 			
-			machineTimes[machine] = Math.max(machineTimes[machine], endTime);
+			machineTimes[machine] = endTime;
 			jobTimes[job] = endTime;
 			
-			if(endTime > makespan)
-				makespan = endTime;
-			
 			currentOperationIndices[job]++;
 		}
+		
+		int job = pb.getJob(addedOperation);
+		int machine = pb.getMachine(job, currentOperationIndices[job]);
+		return Math.max(0, jobTimes[job] - machineTimes[machine]);
+	}
 	
-		return makespan;
-	}*/
-	
+	/**
+	 * Calculate the amount of time wasted by a machine when adding the given operation to a given schedule.
+	 * @param operationOrder - An array containing the indices of the operations to run, null-terminated if incomplete
+	 * @param addedOperation - An operation index
+	 * @return the added inactivity time for the machine that executes the given operation.
+	 * @deprecated use {@link #getInducedGap(int[], int, int)}
+	 */
+	@Deprecated
+	public int getInducedGap(Integer[] operationOrder, int addedOperation) {
+		int[] schedule = toSchedule(operationOrder);
+		// The original version returned 0 for complete schedules
+		if(schedule.length == operationOrder.length)
+			return 0;
+		return getInducedGap(schedule, schedule.length, addedOperation);
+	}
 	
 	/**
 	 * Create the Gantt chart for a given order of operations.
 	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @param length - The number of operations to consider, from the start of the array
+	 * @return the Gantt chart of the schedule
 	 */
-	public GanttChart createGanttChart(Integer[] operationOrder) {
+	public GanttChart createGanttChart(int[] operationOrder, int length) {
 		ProblemInstance pb = getProblemInstance();
 		
-		int machines = pb.getOperationsPerJob();
+		int machines = pb.getNumberOfMachines();
+		
+		// Start time of each operation in the active schedule (only used with active decoding)
+		int[] startTimes = null;
+		if(activeDecoders != null) {
+			startTimes = new int[pb.getTotalOperations()];
+			activeDecoders.get().decode(operationOrder, length, startTimes);
+		}
 		
 		// Store the current operation index for each job
 		int[] currentOperationIndices = new int[pb.getNumberOfJobs()]; 
@@ -260,13 +424,14 @@ public abstract class JSSPAlgorithm {
 		
 		GanttChart gc = new GanttChart(machines);
 		
-		for(int operationIndex : operationOrder) {
-			int job = (int) (operationIndex / pb.getOperationsPerJob());
+		for(int i = 0; i < length; i++) {
+			int job = pb.getJob(operationOrder[i]);
 			int operationInJob = currentOperationIndices[job];
-			int machine = pb.getMachine(job, operationInJob);
-			int duration = pb.getDuration(job, operationInJob);
+			int operation = pb.getOperationIndex(job, operationInJob);
+			int machine = pb.getMachine(operation);
+			int duration = pb.getDuration(operation);
 
-			int operationStartTime = Math.max(jobTimes[job], machineTimes[machine]);
+			int operationStartTime = startTimes != null ? startTimes[operation] : Math.max(jobTimes[job], machineTimes[machine]);
 			int endTime = operationStartTime + duration;
 			
 			machineTimes[machine] = endTime;
@@ -279,4 +444,52 @@ public abstract class JSSPAlgorithm {
 	
 		return gc;
 	}
+	
+	/**
+	 * Create the Gantt chart for a given (complete) order of operations.
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @return the Gantt chart of the schedule
+	 */
+	public GanttChart createGanttChart(int[] operationOrder) {
+		return createGanttChart(operationOrder, operationOrder.length);
+	}
+	
+	/**
+	 * Create the Gantt chart for a given order of operations.
+	 * @param operationOrder - An array containing the indices of the operations to run
+	 * @return the Gantt chart of the schedule
+	 * @deprecated use {@link #createGanttChart(int[], int)}
+	 */
+	@Deprecated
+	public GanttChart createGanttChart(Integer[] operationOrder) {
+		return createGanttChart(toSchedule(operationOrder));
+	}
+	
+	/**
+	 * Convert a boxed order of operations to a primitive one.
+	 * @param operationOrder - An array of operation indices, null-terminated if the schedule is incomplete
+	 * @return an array containing the operation indices before the first null value
+	 */
+	public static int[] toSchedule(Integer[] operationOrder) {
+		int length = 0;
+		while(length < operationOrder.length && operationOrder[length] != null)
+			length++;
+		
+		int[] schedule = new int[length];
+		for(int i = 0; i < length; i++)
+			schedule[i] = operationOrder[i];
+		return schedule;
+	}
+	
+	/**
+	 * Convert a primitive order of operations to a boxed one.
+	 * @param schedule - An array of operation indices
+	 * @return an array containing the same operation indices
+	 */
+	public static Integer[] toBoxedSchedule(int[] schedule) {
+		Integer[] operationOrder = new Integer[schedule.length];
+		for(int i = 0; i < schedule.length; i++)
+			operationOrder[i] = schedule[i];
+		return operationOrder;
+	}
 }
@@ -0,0 +1,227 @@
+package jssp;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of makespans, keyed by a 64-bit fingerprint of the schedule.
+ * Fingerprints are Zobrist hashes: the xor of a random value for each position on a machine and the job processed at that
+ * position (semi-active decoding, where the schedule only depends on the machine sequences), or for each position in the order
+ * and the job at that position (active decoding, where the whole order matters).
+ * Entries are stored in primitive arrays, split into stripes that are locked independently so that ants or particles
+ * evaluated in parallel rarely contend. Within a stripe, a key may only be stored in a small window of slots after its home
+ * slot; when the window is full, an entry is evicted with the clock algorithm (recently used entries get a second chance).
+ * Two schedules with the same fingerprint are considered equal: with 64-bit hashes, collisions are negligible.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class MakespanCache {
+	// Number of independently locked stripes (a power of two)
+	private static final int STRIPES = 16;
+	
+	// Number of slots a key can be stored in, from its home slot
+	private static final int WINDOW = 8;
+	
+	// Seed of the Zobrist values (fixed, so that enabling the cache doesn't change the random numbers of the algorithms)
+	private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+	
+	// Zobrist values of each problem instance, shared by all the caches of that instance
+	private static final Map<ProblemInstance, long[]> ZOBRIST_TABLES = new WeakHashMap<ProblemInstance, long[]>();
+	
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Whether fingerprints identify machine sequences (semi-active decoding) or whole orders (active decoding)
+	private boolean machineSequences;
+	
+	// Random value of each (position on a machine, job) or (position in the order, job) pair, at index position * jobs + job
+	// (shared with the other caches of the problem instance, read-only)
+	private long[] zobrist;
+	
+	// Positions on machine k are numbered from machineOffsets[k] (there is one position per operation processed by the machine)
+	private int[] machineOffsets;
+	
+	// Keys (0 for empty slots), makespans and reference bits of the entries
+	private long[] keys;
+	private int[] makespans;
+	private boolean[] referenced;
+	
+	// The lock, clock hand and first slot of each stripe
+	private Object[] locks;
+	private int[] hands;
+	private int stripeSize;
+	
+	// Scratch buffers used to compute fingerprints (next operation of each job, number of operations scheduled on each machine)
+	private ThreadLocal<int[]> counters;
+	
+	// Statistics
+	private LongAdder hits, misses;
+	
+	/**
+	 * Create a makespan cache.
+	 * @param pb - A problem instance
+	 * @param capacity - The maximum number of entries (rounded up to a multiple of the number of stripes)
+	 * @param machineSequences - true if the makespan only depends on the sequence of operations on each machine (semi-active
+	 * decoding), false if it depends on the whole order of operations
+	 */
+	public MakespanCache(ProblemInstance pb, int capacity, boolean machineSequences) {
+		if(capacity <= 0)
+			throw new IllegalArgumentException("The capacity of the makespan cache must be positive");
+		
+		this.pb = pb;
+		this.machineSequences = machineSequences;
+		
+		// Both kinds of positions are operation slots, so the pairs fit in operations * jobs values
+		// (a job may visit a machine several times: its k-th operation on a machine is the k-th one in job order)
+		machineOffsets = new int[pb.getNumberOfMachines() + 1];
+		for(int op = 0; op < pb.getTotalOperations(); op++)
+			machineOffsets[pb.getMachine(op) + 1]++;
+		for(int k = 0; k < pb.getNumberOfMachines(); k++)
+			machineOffsets[k+1] += machineOffsets[k];
+		
+		zobrist = getZobristTable(pb);
+		
+		stripeSize = Math.max(WINDOW, (capacity + STRIPES - 1) / STRIPES);
+		keys = new long[stripeSize * STRIPES];
+		makespans = new int[keys.length];
+		referenced = new boolean[keys.length];
+		locks = new Object[STRIPES];
+		for(int s = 0; s < STRIPES; s++)
+			locks[s] = new Object();
+		hands = new int[STRIPES];
+		
+		counters = ThreadLocal.withInitial(() -> new int[pb.getNumberOfJobs() + pb.getNumberOfMachines()]);
+		hits = new LongAdder();
+		misses = new LongAdder();
+	}
+	
+	/**
+	 * Get the Zobrist values of a problem instance, created on the first call for that instance.
+	 * The values only depend on the fixed seed, so every cache of the instance can share them.
+	 * @param pb - A problem instance
+	 * @return an array of operations * jobs random values
+	 */
+	private static long[] getZobristTable(ProblemInstance pb) {
+		synchronized(ZOBRIST_TABLES) {
+			return ZOBRIST_TABLES.computeIfAbsent(pb, (instance) -> {
+				long[] table = new long[instance.getTotalOperations() * instance.getNumberOfJobs()];
+				RandomSource random = RandomSource.create(null, ZOBRIST_SEED);
+				for(int i = 0; i < table.length; i++)
+					table[i] = random.nextLong();
+				return table;
+			});
+		}
+	}
+	
+	/**
+	 * Compute the fingerprint of a complete order of operations.
+	 * Only the job of each operation is used: the k-th occurrence of a job stands for its k-th operation.
+	 * @param operationOrder - A complete order of operations
+	 * @return a non-zero 64-bit fingerprint
+	 */
+	public long fingerprint(int[] operationOrder) {
+		int jobs = pb.getNumberOfJobs();
+		int[] next = counters.get();
+		Arrays.fill(next, 0);
+		
+		long hash = 0;
+		for(int i = 0; i < operationOrder.length; i++) {
+			int job = pb.getJob(operationOrder[i]);
+			int position = i;
+			if(machineSequences) {
+				int machine = pb.getMachine(pb.getOperationIndex(job, next[job]++));
+				position = machineOffsets[machine] + next[jobs + machine]++;
+			}
+			hash ^= zobrist[position * jobs + job];
+		}
+		return hash == 0 ? 1 : hash;
+	}
+	
+	/**
+	 * Get the makespan of a schedule, if it is cached.
+	 * @param key - The fingerprint of the schedule
+	 * @return the makespan, or -1 if the schedule isn't cached
+	 */
+	public int get(long key) {
+		int stripe = getStripe(key), home = getHome(key);
+		synchronized(locks[stripe]) {
+			for(int i = 0; i < WINDOW; i++) {
+				int slot = stripe * stripeSize + (home + i) % stripeSize;
+				if(keys[slot] == key) {
+					referenced[slot] = true;
+					hits.increment();
+					return makespans[slot];
+				}
+			}
+		}
+		misses.increment();
+		return -1;
+	}
+	
+	/**
+	 * Store the makespan of a schedule, evicting another entry if needed.
+	 * @param key - The fingerprint of the schedule
+	 * @param makespan - The makespan of the schedule
+	 */
+	public void put(long key, int makespan) {
+		int stripe = getStripe(key), home = getHome(key);
+		synchronized(locks[stripe]) {
+			// Use the slot of the key if it is already stored (by another thread), or the first empty slot
+			int free = -1;
+			for(int i = 0; i < WINDOW; i++) {
+				int slot = stripe * stripeSize + (home + i) % stripeSize;
+				if(keys[slot] == key)
+					return;
+				if(free < 0 && keys[slot] == 0)
+					free = slot;
+			}
+			
+			// Clock eviction within the window: clear reference bits until an unreferenced entry is found
+			while(free < 0) {
+				int slot = stripe * stripeSize + (home + hands[stripe]) % stripeSize;
+				hands[stripe] = (hands[stripe] + 1) % WINDOW;
+				if(referenced[slot])
+					referenced[slot] = false;
+				else
+					free = slot;
+			}
+			
+			keys[free] = key;
+			makespans[free] = makespan;
+			referenced[free] = false;
+		}
+	}
+	
+	/**
+	 * Get the proportion of lookups that found the schedule.
+	 * @return a hit rate in [0,1] (0 if there were no lookups)
+	 */
+	public float getHitRate() {
+		long h = hits.sum(), total = h + misses.sum();
+		return total == 0 ? 0 : h / (float) total;
+	}
+	
+	/**
+	 * Estimate the number of bytes used by the makespan caches of several algorithm instances, without allocating them.
+	 * Each entry takes a key, a makespan and a reference bit; the Zobrist values are shared by all the caches of an instance.
+	 * @param pb - A problem instance
+	 * @param capacity - The capacity of each cache (0 if caches are disabled)
+	 * @param caches - The number of caches
+	 * @return a number of bytes
+	 */
+	public static long estimateMemoryUsage(ProblemInstance pb, int capacity, int caches) {
+		if(capacity <= 0)
+			return 0;
+		long slots = (long) Math.max(WINDOW, (capacity + STRIPES - 1) / STRIPES) * STRIPES;
+		return 13L * slots * caches + 8L * pb.getTotalOperations() * pb.getNumberOfJobs();
+	}
+	
+	private int getStripe(long key) {
+		return (int) (key >>> 32) & (STRIPES - 1);
+	}
+	
+	private int getHome(long key) {
+		return (int) ((key & Long.MAX_VALUE) % stripeSize);
+	}
+}
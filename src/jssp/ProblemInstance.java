@@ -2,14 +2,57 @@ package jssp;
 
 /**
  * Represents a JSSP problem instance.
+ * Operations are stored as flat arrays indexed by a global operation index, with the operations of each job
+ * stored contiguously (jobs can have different numbers of operations).
  * @author Kelian Baert & Caroline de Pourtales
  */
 public class ProblemInstance {	
 	// Name of the problem instance
 	private String name;
 	
-	// Store jobs as arrays of operations
-	private Operation[][] jobs;
+	// The number of machines
+	private int numberOfMachines;
+	
+	// Index of the first operation of each job (the operations of job j are in [jobOffsets[j], jobOffsets[j+1]))
+	private int[] jobOffsets;
+	
+	// Machine and duration of each operation
+	private int[] machines;
+	private int[] durations;
+	
+	// Precomputed job of each operation, and position of each operation within its job
+	private int[] jobOfOperation;
+	private int[] positionInJob;
+	
+	// The largest number of operations in a job
+	private int maxOperationsPerJob;
+	
+	/**
+	 * Create a new problem instance from flat operation arrays.
+	 * @param name - The name of this problem instance
+	 * @param numberOfMachines - The number of machines
+	 * @param jobOffsets - The index of the first operation of each job, followed by the total number of operations
+	 * @param machines - The machine of each operation
+	 * @param durations - The duration of each operation
+	 */
+	public ProblemInstance(String name, int numberOfMachines, int[] jobOffsets, int[] machines, int[] durations) {
+		this.name = name;
+		this.numberOfMachines = numberOfMachines;
+		this.jobOffsets = jobOffsets;
+		this.machines = machines;
+		this.durations = durations;
+		
+		// Precompute operation tables
+		this.jobOfOperation = new int[machines.length];
+		this.positionInJob = new int[machines.length];
+		for(int job = 0; job < getNumberOfJobs(); job++) {
+			maxOperationsPerJob = Math.max(maxOperationsPerJob, getNumberOfOperations(job));
+			for(int op = jobOffsets[job]; op < jobOffsets[job+1]; op++) {
+				jobOfOperation[op] = job;
+				positionInJob[op] = op - jobOffsets[job];
+			}
+		}
+	}
 
 	/**
 	 * Create a new problem instance.
@@ -17,8 +60,7 @@ public class ProblemInstance {
 	 * @param jobs - The jobs, each represented as an array of operations
 	 */
 	public ProblemInstance(String name, Operation[][] jobs) {
-		this.name = name;
-		this.jobs = jobs;
+		this(name, countMachines(jobs), computeJobOffsets(jobs), flatten(jobs, true), flatten(jobs, false));
 	}
 	
 	/**
@@ -26,23 +68,68 @@ public class ProblemInstance {
 	 * @return the number of jobs
 	 */
 	public int getNumberOfJobs() {
-		return this.jobs.length;
+		return jobOffsets.length - 1;
+	}
+	
+	/**
+	 * Get the number of machines in this problem instance.
+	 * @return the number of machines
+	 */
+	public int getNumberOfMachines() {
+		return numberOfMachines;
 	}
 	
 	/**
 	 * Get the number of operations in each job.
-	 * @return the number of operations in each job (i.e. the number of machines)
+	 * @return the largest number of operations in a job (i.e. the number of operations of every job if they all have the same length)
 	 */
 	public int getOperationsPerJob() {
-		return this.jobs[0].length;
+		return maxOperationsPerJob;
+	}
+	
+	/**
+	 * Get the number of operations in a given job.
+	 * @param job - A job index
+	 * @return the number of operations in the job
+	 */
+	public int getNumberOfOperations(int job) {
+		return jobOffsets[job+1] - jobOffsets[job];
 	}
 	
 	/**
 	 * Get the total number of operations in this problem instance.
-	 * @return the total number of operations (i.e. the number of jobs times the number of machines)
+	 * @return the total number of operations (i.e. the sum of the number of operations of each job)
 	 */
 	public int getTotalOperations() {
-		return getNumberOfJobs() * getOperationsPerJob();
+		return machines.length;
+	}
+	
+	/**
+	 * Get the global index of an operation.
+	 * @param job - A job index
+	 * @param operation - The operation index, within the given job
+	 * @return an operation index between 0 (inclusive) and the total number of operations (exclusive)
+	 */
+	public int getOperationIndex(int job, int operation) {
+		return jobOffsets[job] + operation;
+	}
+	
+	/**
+	 * Get the job a given operation belongs to.
+	 * @param operation - A global operation index
+	 * @return a job index
+	 */
+	public int getJob(int operation) {
+		return jobOfOperation[operation];
+	}
+	
+	/**
+	 * Get the position of a given operation within its job.
+	 * @param operation - A global operation index
+	 * @return an operation index, within the job of the operation
+	 */
+	public int getPositionInJob(int operation) {
+		return positionInJob[operation];
 	}
 	
 	/**
@@ -52,7 +139,16 @@ public class ProblemInstance {
 	 * @return a machine index between 0 (inclusive) and the number of machines (exclusive)
 	 */
 	public int getMachine(int job, int operation) {
-		return jobs[job][operation].getMachine();
+		return machines[jobOffsets[job] + operation];
+	}
+	
+	/**
+	 * Get the machine a given operation must be performed on.
+	 * @param operation - A global operation index
+	 * @return a machine index between 0 (inclusive) and the number of machines (exclusive)
+	 */
+	public int getMachine(int operation) {
+		return machines[operation];
 	}
 	
 	/**
@@ -62,7 +158,16 @@ public class ProblemInstance {
 	 * @return a number of time units
 	 */
 	public int getDuration(int job, int operation) {
-		return jobs[job][operation].getDuration();
+		return durations[jobOffsets[job] + operation];
+	}
+	
+	/**
+	 * Get the duration of a given operation.
+	 * @param operation - A global operation index
+	 * @return a number of time units
+	 */
+	public int getDuration(int operation) {
+		return durations[operation];
 	}
 		
 	/**
@@ -72,4 +177,44 @@ public class ProblemInstance {
 	public String getName() {
 		return name;
 	}
+	
+	/**
+	 * Count the machines used by the given jobs.
+	 * @param jobs - The jobs, each represented as an array of operations
+	 * @return the highest machine index plus one
+	 */
+	private static int countMachines(Operation[][] jobs) {
+		int machines = 0;
+		for(Operation[] job : jobs)
+			for(Operation op : job)
+				machines = Math.max(machines, op.getMachine() + 1);
+		return machines;
+	}
+	
+	/**
+	 * Compute the index of the first operation of each job.
+	 * @param jobs - The jobs, each represented as an array of operations
+	 * @return the job offsets, followed by the total number of operations
+	 */
+	private static int[] computeJobOffsets(Operation[][] jobs) {
+		int[] offsets = new int[jobs.length + 1];
+		for(int i = 0; i < jobs.length; i++)
+			offsets[i+1] = offsets[i] + jobs[i].length;
+		return offsets;
+	}
+	
+	/**
+	 * Flatten the machines or durations of the given jobs.
+	 * @param jobs - The jobs, each represented as an array of operations
+	 * @param machines - true to get the machine of each operation, false to get their durations
+	 * @return an array with a value for each operation, job after job
+	 */
+	private static int[] flatten(Operation[][] jobs, boolean machines) {
+		int[] values = new int[computeJobOffsets(jobs)[jobs.length]];
+		int i = 0;
+		for(Operation[] job : jobs)
+			for(Operation op : job)
+				values[i++] = machines ? op.getMachine() : op.getDuration();
+		return values;
+	}
 }
@@ -37,21 +37,28 @@ public class ProblemReader {
 			int[] meta = parseLineOfIntegers(br.readLine());
 			int numJobs = meta[0], numMachines = meta[1];
 
-			Operation[][] jobs = new Operation[numJobs][numMachines];
-
-			// Parse jobs
+			// Parse jobs (each line holds (machine, time) pairs, jobs can have different numbers of operations)
+			int[][] jobData = new int[numJobs][];
+			int[] jobOffsets = new int[numJobs + 1];
 			for(int i = 0; i < numJobs; i++) {
-				int[] jobData = parseLineOfIntegers(br.readLine());
-				for(int j = 0; j < numMachines; j++) {
-					int machine = jobData[j*2];
-					int time = jobData[j*2+1];
-					jobs[i][j] = new Operation(machine, time);
-				}
+				jobData[i] = parseLineOfIntegers(br.readLine());
+				jobOffsets[i+1] = jobOffsets[i] + jobData[i].length / 2;
 			}
 			
 			br.close();
 			
-			return new ProblemInstance(name, jobs);
+			// Flatten the operations
+			int[] machines = new int[jobOffsets[numJobs]];
+			int[] durations = new int[jobOffsets[numJobs]];
+			for(int i = 0; i < numJobs; i++) {
+				for(int j = 0; j < jobOffsets[i+1] - jobOffsets[i]; j++) {
+					machines[jobOffsets[i] + j] = jobData[i][j*2];
+					durations[jobOffsets[i] + j] = jobData[i][j*2+1];
+					numMachines = Math.max(numMachines, jobData[i][j*2] + 1);
+				}
+			}
+			
+			return new ProblemInstance(name, numMachines, jobOffsets, machines, durations);
 		}
 		catch(IOException e) {
 			e.printStackTrace();
@@ -0,0 +1,189 @@
+package jssp;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fast, non-synchronized source of random numbers used by the metaheuristics.
+ * Each source must be used by a single thread: parallel workers get their own stream using split().
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public abstract class RandomSource {
+	// Used to give different default seeds to sources created at the same time
+	private static final AtomicLong seedUniquifier = new AtomicLong(0x5DEECE66DL);
+	
+	/**
+	 * Get the next 64 random bits of this source.
+	 * @return a random long
+	 */
+	public abstract long nextLong();
+	
+	/**
+	 * Create a new source whose stream is independent from this one, advancing this source.
+	 * @return a new random source, to be used by another thread
+	 */
+	public abstract RandomSource split();
+	
+	/**
+	 * Get a random int.
+	 * @return a random int
+	 */
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+	
+	/**
+	 * Get a random int in [0,bound[.
+	 * @param bound - The upper bound (exclusive), must be positive
+	 * @return a random int between 0 (inclusive) and bound (exclusive)
+	 */
+	public int nextInt(int bound) {
+		int r = nextInt() >>> 1;
+		int m = bound - 1;
+		
+		// Power of two
+		if((bound & m) == 0)
+			return (int) ((bound * (long) r) >> 31);
+		
+		// Reject values from the incomplete last interval to avoid bias
+		for(int u = r; u - (r = u % bound) + m < 0; u = nextInt() >>> 1);
+		return r;
+	}
+	
+	/**
+	 * Get a random float in [0,1[.
+	 * @return a random float between 0 (inclusive) and 1 (exclusive)
+	 */
+	public float nextFloat() {
+		return (nextLong() >>> 40) * 0x1.0p-24f;
+	}
+	
+	/**
+	 * Get a random double in [0,1[.
+	 * @return a random double between 0 (inclusive) and 1 (exclusive)
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	
+	/**
+	 * Fill part of an array with random floats in [0,1[, two floats being taken from each 64 random bits.
+	 * @param out - The array to fill
+	 * @param offset - The index of the first cell to fill
+	 * @param length - The number of cells to fill
+	 */
+	public void nextFloats(float[] out, int offset, int length) {
+		int end = offset + length;
+		int i = offset;
+		for(; i + 1 < end; i += 2) {
+			long bits = nextLong();
+			out[i] = (bits >>> 40) * 0x1.0p-24f;
+			out[i+1] = ((bits >>> 8) & 0xFFFFFF) * 0x1.0p-24f;
+		}
+		if(i < end)
+			out[i] = nextFloat();
+	}
+	
+	/**
+	 * Create a random source of a given type.
+	 * @param type - "xoroshiro" (default when null) or "splittable"
+	 * @param seed - The seed of the source
+	 * @return a new random source
+	 */
+	public static RandomSource create(String type, long seed) {
+		if(type == null || type.equals("xoroshiro"))
+			return new Xoroshiro128PlusPlus(seed);
+		else if(type.equals("splittable"))
+			return new SplittableRandomSource(new SplittableRandom(seed));
+		
+		throw new IllegalArgumentException("Unknown random generator type '" + type + "'");
+	}
+	
+	/**
+	 * Create a random source of a given type, with a seed that differs at each call.
+	 * @param type - "xoroshiro" (default when null) or "splittable"
+	 * @return a new random source
+	 */
+	public static RandomSource create(String type) {
+		return create(type, createSeed());
+	}
+	
+	/**
+	 * Create a seed that differs at each call (used when runs do not need to be reproducible).
+	 * @return a seed
+	 */
+	public static long createSeed() {
+		return mix(seedUniquifier.addAndGet(0x9E3779B97F4A7C15L) ^ System.nanoTime());
+	}
+	
+	/**
+	 * Derive the seed of a sub-component (algorithm instance, worker, ...) from a master seed.
+	 * Gives the same result for the same arguments, independently of the order of the calls.
+	 * @param masterSeed - A master seed
+	 * @param index - The index of the sub-component
+	 * @return a seed
+	 */
+	public static long deriveSeed(long masterSeed, int index) {
+		return mix(mix(masterSeed) + (index + 1) * 0x9E3779B97F4A7C15L);
+	}
+	
+	/**
+	 * Scramble the bits of a value (SplitMix64 finalizer). Used to derive seeds.
+	 * @param z - A value
+	 * @return a well-mixed value
+	 */
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * xoroshiro128++ generator (Blackman & Vigna), with a period of 2^128 - 1.
+	 */
+	static class Xoroshiro128PlusPlus extends RandomSource {
+		private long s0, s1;
+		
+		Xoroshiro128PlusPlus(long seed) {
+			// Expand the seed with SplitMix64, which cannot produce an all-zero state from both words
+			s0 = mix(seed += 0x9E3779B97F4A7C15L);
+			s1 = mix(seed + 0x9E3779B97F4A7C15L);
+		}
+		
+		@Override
+		public long nextLong() {
+			long a = s0, b = s1;
+			long result = Long.rotateLeft(a + b, 17) + a;
+			b ^= a;
+			s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+			s1 = Long.rotateLeft(b, 28);
+			return result;
+		}
+		
+		@Override
+		public RandomSource split() {
+			return new Xoroshiro128PlusPlus(mix(nextLong()));
+		}
+	}
+	
+	/**
+	 * Random source backed by java.util.SplittableRandom.
+	 */
+	static class SplittableRandomSource extends RandomSource {
+		private SplittableRandom random;
+		
+		SplittableRandomSource(SplittableRandom random) {
+			this.random = random;
+		}
+		
+		@Override
+		public long nextLong() {
+			return random.nextLong();
+		}
+		
+		@Override
+		public RandomSource split() {
+			return new SplittableRandomSource(random.split());
+		}
+	}
+}
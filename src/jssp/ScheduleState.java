@@ -0,0 +1,108 @@
+package jssp;
+
+import java.util.Arrays;
+
+/**
+ * Incremental state of a partial schedule, built by appending operations one at a time.
+ * Keeps the ready time of each job and machine so that appending an operation and querying the effect
+ * of a candidate operation (induced gap) are done in constant time, while the makespan is kept up to date.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class ScheduleState {
+	// The problem instance the schedule belongs to
+	private ProblemInstance problemInstance;
+	
+	// Store the index (within its job) of the next operation to schedule for each job
+	private int[] nextOperationInJob;
+	
+	// Store the time at which each job and each machine becomes available
+	private int[] jobTimes;
+	private int[] machineTimes;
+	
+	// Makespan of the partial schedule
+	private int makespan;
+	
+	// Number of operations appended so far
+	private int size;
+	
+	/**
+	 * Create an empty schedule state.
+	 * @param problemInstance - A JSSP problem instance
+	 */
+	public ScheduleState(ProblemInstance problemInstance) {
+		this.problemInstance = problemInstance;
+		this.nextOperationInJob = new int[problemInstance.getNumberOfJobs()];
+		this.jobTimes = new int[problemInstance.getNumberOfJobs()];
+		this.machineTimes = new int[problemInstance.getNumberOfMachines()];
+	}
+	
+	/**
+	 * Clear the state so that it represents an empty schedule. Does not allocate.
+	 */
+	public void reset() {
+		Arrays.fill(nextOperationInJob, 0);
+		Arrays.fill(jobTimes, 0);
+		Arrays.fill(machineTimes, 0);
+		makespan = 0;
+		size = 0;
+	}
+	
+	/**
+	 * Append an operation at the end of the schedule.
+	 * Only the job of the given operation is considered: the next unscheduled operation of that job is added.
+	 * @param operation - An operation index
+	 */
+	public void append(int operation) {
+		int job = problemInstance.getJob(operation);
+		int next = problemInstance.getOperationIndex(job, nextOperationInJob[job]);
+		int machine = problemInstance.getMachine(next);
+		
+		int endTime = Math.max(jobTimes[job], machineTimes[machine]) + problemInstance.getDuration(next);
+		
+		machineTimes[machine] = endTime;
+		jobTimes[job] = endTime;
+		
+		if(endTime > makespan)
+			makespan = endTime;
+		
+		nextOperationInJob[job]++;
+		size++;
+	}
+	
+	/**
+	 * Get the amount of time the machine would stay idle if the next operation of the given operation's job was appended
+	 * to the schedule (as in append, only the job of the operation is used).
+	 * @param operation - An operation index
+	 * @return the added inactivity time for the machine that executes the next operation of the job
+	 */
+	public int peekGap(int operation) {
+		int job = problemInstance.getJob(operation);
+		int machine = problemInstance.getMachine(problemInstance.getOperationIndex(job, nextOperationInJob[job]));
+		return Math.max(0, jobTimes[job] - machineTimes[machine]);
+	}
+	
+	/**
+	 * Get the makespan of the current partial schedule.
+	 * @return the makespan
+	 */
+	public int getMakespan() {
+		return makespan;
+	}
+	
+	/**
+	 * Get the number of operations in the current partial schedule.
+	 * @return the number of appended operations
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the index (within its job) of the next operation to schedule for a given job.
+	 * @param job - A job index
+	 * @return an operation index within the job, equal to the number of operations in the job if it is complete
+	 */
+	public int getNextOperationInJob(int job) {
+		return nextOperationInJob[job];
+	}
+}
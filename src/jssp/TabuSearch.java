@@ -0,0 +1,293 @@
+package jssp;
+
+import java.util.Arrays;
+
+/**
+ * Tabu search improving a schedule by reordering operations on the critical path.
+ * Schedules are represented by the order of the operations on each machine. Moves reorder a critical block (a maximal
+ * sequence of consecutive critical operations on a machine): swaps of the first or last two operations of a block (N5) and
+ * moves of an operation to the start or the end of its block, or of the first or last operation inside the block (N7).
+ * Moves are ranked with Taillard-style estimates computed from the heads and tails of the current schedule, so only the chosen
+ * move is applied, with an incremental update of the disjunctive graph.
+ * An instance owns its buffers, it should not be shared between threads.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class TabuSearch {
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Base tabu tenure (the actual tenure of a move is drawn in [tenure, 1.5 * tenure])
+	private int tenure;
+	
+	// The search stops after this number of iterations without improvement
+	private int maxIterationsWithoutImprovement;
+	
+	// The graph of the current schedule
+	private DisjunctiveGraph graph;
+	
+	// Operations of a critical path, in order
+	private int[] criticalPath;
+	private int criticalPathLength;
+	
+	// Iteration until which processing job a before job b on machine k is forbidden, at index (k * n + a) * n + b
+	private int[] tabu;
+	
+	// Reordered segment and its estimated heads and tails, used to evaluate a move
+	private int[] segment, segmentHeads, segmentTails;
+	
+	/**
+	 * Create a tabu search for a given problem instance.
+	 * @param pb - A problem instance
+	 * @param tenure - The number of iterations during which a reversed move is forbidden
+	 * @param maxIterationsWithoutImprovement - The number of iterations without improvement after which the search stops
+	 */
+	public TabuSearch(ProblemInstance pb, int tenure, int maxIterationsWithoutImprovement) {
+		this.pb = pb;
+		this.tenure = tenure;
+		this.maxIterationsWithoutImprovement = maxIterationsWithoutImprovement;
+		
+		int n = pb.getTotalOperations();
+		graph = new DisjunctiveGraph(pb);
+		criticalPath = new int[n];
+		segment = new int[n];
+		segmentHeads = new int[n];
+		segmentTails = new int[n];
+		tabu = new int[pb.getNumberOfMachines() * pb.getNumberOfJobs() * pb.getNumberOfJobs()];
+	}
+	
+	/**
+	 * Improve a schedule with tabu search.
+	 * @param operationOrder - A complete order of operations
+	 * @param timeBudget - The maximum duration of the search (ms)
+	 * @param random - The random generator used to draw tabu tenures
+	 * @return a new order of operations (using actual operation indices) whose makespan is lower than or equal to the given one
+	 */
+	public int[] improve(int[] operationOrder, long timeBudget, RandomSource random) {
+		long deadline = System.nanoTime() + timeBudget * 1000000L;
+		
+		graph.load(operationOrder);
+		int bestMakespan = graph.getMakespan();
+		int[] bestMachineOrder = graph.getMachineOrder().clone();
+		
+		Arrays.fill(tabu, 0);
+		int iterationsWithoutImprovement = 0;
+		
+		for(int iteration = 1; iterationsWithoutImprovement < maxIterationsWithoutImprovement && System.nanoTime() < deadline; iteration++) {
+			criticalPathLength = graph.findCriticalPath(criticalPath);
+			
+			// Find the best move, among non-tabu moves and tabu moves that would improve on the best makespan
+			long bestMove = findBestMove(iteration, bestMakespan, false);
+			
+			// Tabu moves are selected on a lower bound of their makespan: only keep one that actually improves on the best makespan
+			if(bestMove >= 0 && isTabu((int) (bestMove >>> 32), (int) bestMove, iteration) && !improves(bestMove, bestMakespan))
+				bestMove = findBestMove(iteration, 0, false);
+			if(bestMove < 0)
+				bestMove = findBestMove(iteration, bestMakespan, true);
+			
+			// No move: the critical path is made of a single block, or of operations of a single job, so the schedule is optimal
+			if(bestMove < 0)
+				break;
+			
+			int from = (int) (bestMove >>> 32), to = (int) bestMove;
+			setTabu(from, to, iteration + tenure + random.nextInt(tenure / 2 + 1));
+			
+			// A move creating a cycle (which the feasibility conditions should prevent) is not applied: stop
+			if(!graph.move(from, to))
+				break;
+			
+			if(graph.getMakespan() < bestMakespan) {
+				bestMakespan = graph.getMakespan();
+				System.arraycopy(graph.getMachineOrder(), 0, bestMachineOrder, 0, bestMachineOrder.length);
+				iterationsWithoutImprovement = 0;
+			}
+			else
+				iterationsWithoutImprovement++;
+		}
+		
+		// Restore the best schedule and list its operations by start time
+		graph.setMachineOrder(bestMachineOrder);
+		return graph.toOperationOrder();
+	}
+	
+	/**
+	 * Check whether a move gives a makespan lower than a given one, by applying it and undoing it.
+	 * @param move - A move as (from << 32 | to), where from and to are positions in the machine order
+	 * @param makespan - A makespan
+	 * @return true if the schedule after the move has a lower makespan
+	 */
+	private boolean improves(long move, int makespan) {
+		int from = (int) (move >>> 32), to = (int) move;
+		if(!graph.move(from, to))
+			return false;
+		boolean improves = graph.getMakespan() < makespan;
+		graph.move(to, from);
+		return improves;
+	}
+	
+	/**
+	 * Find the move with the lowest estimated makespan in the N5 and N7 neighbourhoods of the current schedule.
+	 * Tabu moves are allowed if their estimate is below the best makespan (aspiration), but the estimate is only a lower bound:
+	 * callers should confirm that such a move actually improves on the best makespan.
+	 * @param iteration - The current iteration
+	 * @param bestMakespan - The best makespan found so far (tabu moves estimated below it are allowed, 0 to forbid all tabu moves)
+	 * @param allowTabu - true to consider all moves
+	 * @return the best move as (from << 32 | to), where from and to are positions in the machine order, or -1 if there are no moves
+	 */
+	private long findBestMove(int iteration, int bestMakespan, boolean allowTabu) {
+		long bestMove = -1;
+		int bestEstimate = Integer.MAX_VALUE;
+		
+		int blockStart = 0;
+		for(int i = 1; i <= criticalPathLength; i++) {
+			// Blocks end when the next critical operation isn't the machine successor
+			if(i < criticalPathLength && graph.getMachineSuccessor(criticalPath[i-1]) == criticalPath[i])
+				continue;
+			
+			int first = graph.getPosition(criticalPath[blockStart]), last = graph.getPosition(criticalPath[i-1]);
+			boolean firstBlock = blockStart == 0, lastBlock = i == criticalPathLength;
+			blockStart = i;
+			if(last == first)
+				continue;
+			
+			for(int p = first; p <= last; p++) {
+				for(int q = first; q <= last; q++) {
+					if(!isCandidateMove(p, q, first, last, firstBlock, lastBlock))
+						continue;
+					
+					int estimate = estimateMove(p, q);
+					if(estimate < bestEstimate && (allowTabu || estimate < bestMakespan || !isTabu(p, q, iteration))) {
+						bestEstimate = estimate;
+						bestMove = ((long) p << 32) | q;
+					}
+				}
+			}
+		}
+		return bestMove;
+	}
+	
+	/**
+	 * Check whether moving the operation at a position to another position of the same block belongs to the neighbourhoods,
+	 * and is guaranteed to give a feasible schedule.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to
+	 * @param first - The position of the first operation of the block
+	 * @param last - The position of the last operation of the block
+	 * @param firstBlock - Whether the block is the first of the critical path
+	 * @param lastBlock - Whether the block is the last of the critical path
+	 * @return true if the move should be evaluated
+	 */
+	private boolean isCandidateMove(int from, int to, int first, int last, boolean firstBlock, boolean lastBlock) {
+		if(from == to)
+			return false;
+		
+		// Swaps of the first two operations of a block, except in the first block, and of the last two, except in the last block (N5)
+		// Adjacent swaps are always feasible, and a backward swap is the same move as the forward one
+		if(Math.abs(from - to) == 1)
+			return (from == first && to == first + 1 && !firstBlock) || (from == last - 1 && to == last && !lastBlock);
+		
+		// Moves between an inner operation and the first or last position (N7)
+		if(!(from == first || from == last || to == first || to == last))
+			return false;
+		
+		if(from < to) {
+			// Moving u after v is feasible if the job successor of u is not after v on a longest path
+			int u = graph.getOperationAt(from), v = graph.getOperationAt(to);
+			int js = graph.getJobSuccessor(u);
+			return js < 0 || graph.getTail(v) + pb.getDuration(v) >= graph.getTail(js) + pb.getDuration(js);
+		}
+		else {
+			// Moving v before u is feasible if the job predecessor of v is not before u on a longest path
+			int v = graph.getOperationAt(from), u = graph.getOperationAt(to);
+			int jp = graph.getJobPredecessor(v);
+			return jp < 0 || graph.getHead(u) + pb.getDuration(u) >= graph.getHead(jp) + pb.getDuration(jp);
+		}
+	}
+	
+	/**
+	 * Estimate the makespan after moving an operation within its machine, from the heads and tails of the current schedule.
+	 * For a swap of two adjacent operations, this is Taillard's estimate.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to
+	 * @return a lower bound of the makespan of the longest path through the reordered operations
+	 */
+	private int estimateMove(int from, int to) {
+		int start = Math.min(from, to), end = Math.max(from, to);
+		int length = graph.getReorderedSegment(from, to, segment);
+		
+		// Heads, from the machine predecessor of the segment
+		int mp = graph.getMachinePredecessor(graph.getOperationAt(start));
+		int previousEnd = mp < 0 ? 0 : graph.getHead(mp) + pb.getDuration(mp);
+		for(int i = 0; i < length; i++) {
+			int op = segment[i];
+			int jp = graph.getJobPredecessor(op);
+			segmentHeads[i] = Math.max(previousEnd, jp < 0 ? 0 : graph.getHead(jp) + pb.getDuration(jp));
+			previousEnd = segmentHeads[i] + pb.getDuration(op);
+		}
+		
+		// Tails, from the machine successor of the segment
+		int ms = graph.getMachineSuccessor(graph.getOperationAt(end));
+		int nextTail = ms < 0 ? 0 : graph.getTail(ms) + pb.getDuration(ms);
+		int estimate = 0;
+		for(int i = length - 1; i >= 0; i--) {
+			int op = segment[i];
+			int js = graph.getJobSuccessor(op);
+			segmentTails[i] = Math.max(nextTail, js < 0 ? 0 : graph.getTail(js) + pb.getDuration(js));
+			nextTail = segmentTails[i] + pb.getDuration(op);
+			estimate = Math.max(estimate, segmentHeads[i] + pb.getDuration(op) + segmentTails[i]);
+		}
+		return estimate;
+	}
+	
+	/**
+	 * Check whether a move would put back an order of operations that was recently reversed.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to
+	 * @param iteration - The current iteration
+	 * @return true if the move is tabu
+	 */
+	private boolean isTabu(int from, int to, int iteration) {
+		int moved = graph.getOperationAt(from);
+		if(from < to) {
+			// The moved operation goes after the operations in ]from, to]
+			for(int p = from + 1; p <= to; p++)
+				if(tabu[getTabuIndex(graph.getOperationAt(p), moved)] > iteration)
+					return true;
+		}
+		else {
+			// The moved operation goes before the operations in [to, from[
+			for(int p = to; p < from; p++)
+				if(tabu[getTabuIndex(moved, graph.getOperationAt(p))] > iteration)
+					return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Forbid the orders of operations reversed by a move from being restored.
+	 * @param from - The position of the moved operation
+	 * @param to - The position the operation is moved to
+	 * @param until - The iteration until which the move is tabu
+	 */
+	private void setTabu(int from, int to, int until) {
+		int moved = graph.getOperationAt(from);
+		if(from < to) {
+			for(int p = from + 1; p <= to; p++)
+				tabu[getTabuIndex(moved, graph.getOperationAt(p))] = until;
+		}
+		else {
+			for(int p = to; p < from; p++)
+				tabu[getTabuIndex(graph.getOperationAt(p), moved)] = until;
+		}
+	}
+	
+	/**
+	 * Get the index of the tabu status of an operation being processed before another on their machine.
+	 * @param before - An operation
+	 * @param after - Another operation, on the same machine
+	 * @return an index in the tabu array
+	 */
+	private int getTabuIndex(int before, int after) {
+		int n = pb.getNumberOfJobs();
+		return (pb.getMachine(before) * n + pb.getJob(before)) * n + pb.getJob(after);
+	}
+}
@@ -62,6 +62,15 @@ public class Config {
 		return Integer.parseInt(get(key));
 	}
 	
+	/**
+	 * Get a long property with a given key
+	 * @param key - A property key
+	 * @return the property associated with the given key
+	 */
+	public long getLong(String key) {
+		return Long.parseLong(get(key));
+	}
+	
 	/**
 	 * Parses a configuration file with a given name
 	 * @param fileName - The name of the configuration file, e.g. config.properties  
@@ -0,0 +1,127 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import jssp.RandomSource;
+
+/**
+ * Island model connecting the algorithm instances of a Solver: each instance (island) periodically sends its best
+ * schedule to its neighbours, which inject it into their population.
+ * Each island has an inbox holding the best schedule it received since it last read it. Sending only swaps references
+ * in the inboxes, so it never blocks the sender.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class IslandModel {
+	// Each island sends to the next one
+	public static final String RING = "ring";
+	// Each island sends to all other islands
+	public static final String FULL = "full";
+	// Each island sends to another island chosen at random
+	public static final String RANDOM = "random";
+	
+	// The topology of the model (ring, full or random)
+	private String topology;
+	
+	// The number of iterations between two migrations
+	private int migrationInterval;
+	
+	// The best schedule received by each island and not read yet (null if none)
+	private AtomicReferenceArray<Migrant> inboxes;
+	
+	/**
+	 * Create an island model.
+	 * @param numberOfIslands - The number of islands (i.e. algorithm instances)
+	 * @param topology - "ring", "full" or "random"
+	 * @param migrationInterval - The number of iterations between two migrations
+	 */
+	public IslandModel(int numberOfIslands, String topology, int migrationInterval) {
+		if(!topology.equals(RING) && !topology.equals(FULL) && !topology.equals(RANDOM))
+			throw new IllegalArgumentException("Unknown island topology '" + topology + "'");
+		if(migrationInterval <= 0)
+			throw new IllegalArgumentException("The migration interval must be positive");
+		
+		this.topology = topology;
+		this.migrationInterval = migrationInterval;
+		this.inboxes = new AtomicReferenceArray<Migrant>(numberOfIslands);
+	}
+	
+	/**
+	 * Get the number of iterations between two migrations.
+	 * @return a number of iterations
+	 */
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+	
+	/**
+	 * Send a schedule from an island to its neighbours. Must be called by the thread running the island.
+	 * @param island - The index of the sending island
+	 * @param schedule - A complete order of operations, using actual operation indices (it must not be modified afterwards)
+	 * @param makespan - The makespan of the schedule
+	 * @param random - The random source of the sending island (used by the random topology)
+	 */
+	public void emigrate(int island, int[] schedule, int makespan, RandomSource random) {
+		int n = inboxes.length();
+		if(n < 2)
+			return;
+		
+		Migrant migrant = new Migrant(island, schedule, makespan);
+		
+		if(topology.equals(RING))
+			send((island + 1) % n, migrant);
+		else if(topology.equals(FULL)) {
+			for(int i = 0; i < n; i++)
+				if(i != island)
+					send(i, migrant);
+		}
+		else if(topology.equals(RANDOM))
+			send((island + 1 + random.nextInt(n - 1)) % n, migrant);
+	}
+	
+	/**
+	 * Take the best schedule received by an island since the last call.
+	 * @param island - The index of the receiving island
+	 * @return a complete order of operations, or null if the island hasn't received anything
+	 */
+	public int[] immigrate(int island) {
+		Migrant migrant = inboxes.getAndSet(island, null);
+		return migrant == null ? null : migrant.schedule;
+	}
+	
+	/**
+	 * Put a migrant in the inbox of an island, unless the inbox already holds a better one.
+	 * @param island - The index of the receiving island
+	 * @param migrant - The migrant to send
+	 */
+	private void send(int island, Migrant migrant) {
+		inboxes.accumulateAndGet(island, migrant, IslandModel::best);
+	}
+	
+	/**
+	 * Get the best of two migrants. Ties are broken on the index of the sender, so that the result doesn't
+	 * depend on the order in which migrants arrived.
+	 * @param a - A migrant, or null
+	 * @param b - Another migrant
+	 * @return the migrant with the lowest makespan
+	 */
+	private static Migrant best(Migrant a, Migrant b) {
+		if(a == null)
+			return b;
+		return (b.makespan < a.makespan || (b.makespan == a.makespan && b.source < a.source)) ? b : a;
+	}
+	
+	/**
+	 * A schedule sent by an island.
+	 */
+	private static class Migrant {
+		private final int source;
+		private final int[] schedule;
+		private final int makespan;
+		
+		private Migrant(int source, int[] schedule, int makespan) {
+			this.source = source;
+			this.schedule = schedule;
+			this.makespan = makespan;
+		}
+	}
+}
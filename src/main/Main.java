@@ -4,12 +4,18 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
 
 import javax.imageio.ImageIO;
 
 import aco.ACOAlgorithm;
+import aco.PheromoneModel;
+import jssp.MakespanCache;
 import jssp.ProblemInstance;
 import jssp.ProblemReader;
+import jssp.RandomSource;
+import jssp.TabuSearch;
 import pso.PSOAlgorithm;
 import utils.GanttChart;
 
@@ -29,6 +35,9 @@ public class Main {
 		String benchmark = cfg.get("benchmark");
 		String outputDirectory = cfg.get("outputDir");
 		
+		// Use the given master seed, or a new one if runs don't need to be reproducible
+		long seed = cfg.get("seed") == null || cfg.get("seed").equals("random") ? RandomSource.createSeed() : cfg.getLong("seed");
+		
 		// Check the properties
 		if(!mode.equals("ACO") && !mode.equals("PSO")) {
 			System.err.println("[Critical Error] Mode '" + mode + "' does not exist.");
@@ -49,19 +58,63 @@ public class Main {
 		
 		// Print information about the problem instance
 		System.out.println("Problem instance: " + instance.getName() + 
-				" (" + instance.getNumberOfJobs() + " jobs, " + instance.getOperationsPerJob() + " machines)");
+				" (" + instance.getNumberOfJobs() + " jobs, " + instance.getNumberOfMachines() + " machines)");
+		System.out.println("Seed: " + seed);
+		
+		// Print the memory needed by the pheromones of the colonies, which grows quadratically with the number of operations,
+		// and by the makespan caches, and abort if it can't fit in the heap
+		long pheromoneBytes = 0;
+		if(mode.equals("ACO")) {
+			pheromoneBytes = PheromoneModel.estimateMemoryUsage(cfg.get("pheromoneModel"), instance) * threads;
+			float megabytes = pheromoneBytes / (1024.0f * 1024.0f);
+			System.out.println("Pheromone memory: " + String.format(Locale.ENGLISH, "%.2f", megabytes / threads) + " MB per colony (" +
+					String.format(Locale.ENGLISH, "%.2f", megabytes) + " MB in total)");
+		}
+		
+		long cacheBytes = MakespanCache.estimateMemoryUsage(instance, cfg.get("makespanCacheSize") == null ? 0 : cfg.getInt("makespanCacheSize"), threads);
+		if(cacheBytes > 0)
+			System.out.println("Makespan cache memory: " + String.format(Locale.ENGLISH, "%.2f", cacheBytes / (1024.0f * 1024.0f)) + " MB in total");
+		
+		if(pheromoneBytes + cacheBytes > Runtime.getRuntime().maxMemory()) {
+			String advice = pheromoneBytes <= cacheBytes ? "Use a smaller makespanCacheSize, fewer threads or a larger heap (-Xmx)." :
+					"machine".equals(cfg.get("pheromoneModel")) ? "Use fewer threads or a larger heap (-Xmx)." :
+					"Use pheromoneModel=machine, which needs about " + instance.getNumberOfMachines() + " times less memory, fewer threads or a larger heap (-Xmx).";
+			System.err.println("[Critical Error] The pheromones and makespan caches need more memory than the maximum heap size (" +
+					String.format(Locale.ENGLISH, "%.2f", Runtime.getRuntime().maxMemory() / (1024.0f * 1024.0f)) + " MB). " + advice);
+			System.exit(1);
+		}
 				
 		int benchmarkMakespan = benchmark.equals("enabled") ?
 				Arrays.asList(56, 1059, 1276, 1130, 1451, 1721, 977).get(Integer.parseInt(instance.getName().substring(0, 1)) - 1) : 
 				benchmark.equals("disabled") ? 0 : cfg.getInt("benchmark");
 		
-		Solver solver = new Solver(() -> {
-			return mode.equals("ACO") ? new ACOAlgorithm(instance, cfg) :
-				mode.equals("PSO") ? new PSOAlgorithm(instance, cfg) : null;
-		}, threads, cfg.getFloat("terminationThreshold"), benchmarkMakespan);
+		Solver solver = new Solver((algorithmSeed) -> {
+			return mode.equals("ACO") ? new ACOAlgorithm(instance, cfg, algorithmSeed) :
+				mode.equals("PSO") ? new PSOAlgorithm(instance, cfg, algorithmSeed) : null;
+		}, threads, cfg.getFloat("terminationThreshold"), benchmarkMakespan, seed);
+		
+		solver.setNumberOfWorkers(cfg.get("workers") == null ? 0 : cfg.getInt("workers"));
+		solver.setAsynchronous("async".equals(cfg.get("solverMode")));
+		
+		String topology = cfg.get("topology");
+		if(topology != null && !topology.equals("none"))
+			solver.setIslandModel(new IslandModel(threads, topology, cfg.getInt("migrationInterval")));
+		
+		// Tabu search: "none", "end" (on the final best schedule) or "epoch" (also at the end of each epoch)
+		String tabuSearch = cfg.get("tabuSearch") == null ? "none" : cfg.get("tabuSearch");
+		Supplier<TabuSearch> tabuSearchFactory = () -> new TabuSearch(instance, cfg.getInt("tabuTenure"), cfg.getInt("tabuMaxIterationsWithoutImprovement"));
+		if(tabuSearch.equals("epoch"))
+			solver.setEpochTabuSearch(tabuSearchFactory, cfg.getInt("tabuEpochTimeBudget"));
 		
 		solver.solve(maxIterations, epochSize, (bestAlgorithm) -> {
-			Integer[] bestSolution = bestAlgorithm.getBestSolution();
+			int[] bestSolution = bestAlgorithm.getBestSchedule();
+			
+			if(!tabuSearch.equals("none")) {
+				int makespanBefore = bestAlgorithm.computeMakespan(bestSolution);
+				bestSolution = tabuSearchFactory.get().improve(bestAlgorithm.normalizeSchedule(bestSolution), cfg.getInt("tabuTimeBudget"), bestAlgorithm.getRandom());
+				System.out.println("\nTabu search: " + makespanBefore + " -> " + bestAlgorithm.computeMakespan(bestSolution));
+			}
+			
 			int bestMakespan = bestAlgorithm.computeMakespan(bestSolution);
 			
 			System.out.println("\nGlobal best makespan: " + bestMakespan);
@@ -0,0 +1,186 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Collects the progress snapshots published by the algorithms of a Solver.
+ * Snapshots are immutable, so any thread can read them without synchronizing with the algorithms.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class ProgressAggregator {
+	// Latest snapshot of each algorithm
+	private AtomicReferenceArray<Snapshot> snapshots;
+	
+	// The number of algorithms still running
+	private AtomicInteger runningCount;
+	
+	/**
+	 * Create an aggregator for a given number of algorithms, all considered as running.
+	 * @param size - The number of algorithms
+	 */
+	public ProgressAggregator(int size) {
+		this.snapshots = new AtomicReferenceArray<Snapshot>(size);
+		this.runningCount = new AtomicInteger(size);
+		for(int i = 0; i < size; i++)
+			snapshots.set(i, new Snapshot(0, Integer.MAX_VALUE, 0, "", true));
+	}
+	
+	/**
+	 * Publish the progress of an algorithm.
+	 * @param index - The index of the algorithm
+	 * @param ranIterations - The number of iterations the algorithm has run
+	 * @param bestMakespan - The best makespan found by the algorithm
+	 * @param avgTimePerIter - The average time per iteration during the last epoch (ms)
+	 * @param details - A description of the algorithm-specific state
+	 */
+	public void publish(int index, int ranIterations, int bestMakespan, float avgTimePerIter, String details) {
+		Snapshot previous = snapshots.get(index);
+		snapshots.set(index, new Snapshot(ranIterations, bestMakespan, avgTimePerIter, details, previous.running));
+	}
+	
+	/**
+	 * Mark an algorithm as finished. Does nothing if it was already finished.
+	 * @param index - The index of the algorithm
+	 */
+	public void setFinished(int index) {
+		Snapshot s = snapshots.get(index);
+		if(s.running) {
+			snapshots.set(index, new Snapshot(s.ranIterations, s.bestMakespan, s.avgTimePerIter, s.details, false));
+			runningCount.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Get the latest snapshot of an algorithm.
+	 * @param index - The index of the algorithm
+	 * @return the latest published snapshot
+	 */
+	public Snapshot get(int index) {
+		return snapshots.get(index);
+	}
+	
+	/**
+	 * Get the number of algorithms.
+	 * @return the number of algorithms tracked by this aggregator
+	 */
+	public int size() {
+		return snapshots.length();
+	}
+	
+	/**
+	 * Get the number of algorithms still running.
+	 * @return the number of running algorithms
+	 */
+	public int getRunningCount() {
+		return runningCount.get();
+	}
+	
+	/**
+	 * Calculate the average of the best makespan of all algorithms still running.
+	 * @return the average makespan
+	 */
+	public float getAverageBestMakespan() {
+		float sum = 0.0f;
+		int count = 0;
+		for(int i = 0; i < snapshots.length(); i++) {
+			Snapshot s = snapshots.get(i);
+			if(s.running) {
+				sum += s.bestMakespan;
+				count++;
+			}
+		}
+		return count == 0 ? 0 : sum / count;
+	}
+	
+	/**
+	 * Get the largest difference between the best makespan of a running algorithm and a given value.
+	 * @param makespan - A makespan value (typically the average best makespan)
+	 * @return the largest absolute difference
+	 */
+	public float getLargestDifference(float makespan) {
+		float largest = 0.0f;
+		for(int i = 0; i < snapshots.length(); i++) {
+			Snapshot s = snapshots.get(i);
+			if(s.running)
+				largest = Math.max(largest, Math.abs(s.bestMakespan - makespan));
+		}
+		return largest;
+	}
+	
+	/**
+	 * Get the average time per iteration of the running algorithms, during their last epoch.
+	 * @return a time in ms
+	 */
+	public float getAverageTimePerIteration() {
+		float sum = 0.0f;
+		int count = 0;
+		for(int i = 0; i < snapshots.length(); i++) {
+			Snapshot s = snapshots.get(i);
+			if(s.running) {
+				sum += s.avgTimePerIter;
+				count++;
+			}
+		}
+		return count == 0 ? 0 : sum / count;
+	}
+	
+	/**
+	 * Immutable progress of an algorithm at a given time.
+	 */
+	public static class Snapshot {
+		private final int ranIterations;
+		private final int bestMakespan;
+		private final float avgTimePerIter;
+		private final String details;
+		private final boolean running;
+		
+		private Snapshot(int ranIterations, int bestMakespan, float avgTimePerIter, String details, boolean running) {
+			this.ranIterations = ranIterations;
+			this.bestMakespan = bestMakespan;
+			this.avgTimePerIter = avgTimePerIter;
+			this.details = details;
+			this.running = running;
+		}
+		
+		/**
+		 * Get the number of iterations the algorithm had run.
+		 * @return a number of iterations
+		 */
+		public int getRanIterations() {
+			return ranIterations;
+		}
+		
+		/**
+		 * Get the best makespan the algorithm had found.
+		 * @return a makespan
+		 */
+		public int getBestMakespan() {
+			return bestMakespan;
+		}
+		
+		/**
+		 * Get the average time per iteration during the algorithm's last epoch.
+		 * @return a time in ms
+		 */
+		public float getAvgTimePerIter() {
+			return avgTimePerIter;
+		}
+		
+		/**
+		 * Get a description of the algorithm-specific state.
+		 * @return a string
+		 */
+		public String getDetails() {
+			return details;
+		}
+		
+		/**
+		 * Get whether the algorithm was still running.
+		 * @return true if running, false if finished
+		 */
+		public boolean isRunning() {
+			return running;
+		}
+	}
+}
@@ -1,27 +1,38 @@
 package main;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
 
 import aco.ACOAlgorithm;
 import jssp.JSSPAlgorithm;
+import jssp.RandomSource;
+import jssp.TabuSearch;
 import pso.PSOAlgorithm;
 
 /**
  * A solver class that handles multi-threading for solving JSSP problems using ACO or PSO.
+ * Algorithm instances run their epochs on a fixed pool of worker threads, either synchronously (all algorithms
+ * finish an epoch before the next one starts) or asynchronously (each algorithm runs its epochs back to back).
  * @author Kelian Baert & Caroline de Pourtales
  */
 public class Solver {
 	// Store algorithm instances
 	private List<JSSPAlgorithm> algorithms;
 	
-	// Store algorithms currently running
-	private List<JSSPAlgorithm> runningAlgorithms;
+	// Progress published by the algorithms, and whether they are still running
+	private ProgressAggregator progress;
 	
 	// Store in a map the number of epochs since the last improvement in makespan for each algorithm
 	private Map<JSSPAlgorithm, Integer> epochsSinceImprovement;
@@ -32,20 +43,45 @@ public class Solver {
 	// The makespan of the benchmark, used to print current relative gap (ignored when set to 0)
 	private int benchmarkMakespan;
 	
+	// The number of worker threads used to run the algorithms
+	private int numWorkers = Runtime.getRuntime().availableProcessors();
+	
+	// Island model used to share the best schedules between algorithms (null if algorithms are independent)
+	private IslandModel islandModel;
+	
+	// Tabu searches applied to the best schedule of each algorithm at the end of each epoch (null if disabled), and their time budget (ms)
+	private TabuSearch[] tabuSearches;
+	private long tabuTimeBudget;
+	
+	// Whether algorithms run their epochs without waiting for each other
+	private boolean asynchronous = false;
+	
+	// Interval between two prints of the state in asynchronous mode (ms)
+	private static final long ASYNC_PRINT_INTERVAL = 2000;
+	
 	/**
-	 * Initialize the solver.
-	 * @param algorithmSupplier - A supplier that creates algorithm instances
+	 * Initialize the solver with seeded algorithms. Runs are reproducible for a given seed.
+	 * @param algorithmFactory - A function that creates an algorithm instance from a seed
 	 * @param numThreads - The number of algorithms that will run in parallel
+	 * @param seed - The master seed, from which the seed of each algorithm is derived
 	 */
-	public Solver(Supplier<JSSPAlgorithm> algorithmSupplier, int numThreads, float terminationThreshold, int benchmarkMakespan) {
+	public Solver(LongFunction<JSSPAlgorithm> algorithmFactory, int numThreads, float terminationThreshold, int benchmarkMakespan, long seed) {
 		this.algorithms = new ArrayList<JSSPAlgorithm>();
-		this.runningAlgorithms = new ArrayList<JSSPAlgorithm>();
 		this.terminationThreshold = terminationThreshold;
 		this.benchmarkMakespan = benchmarkMakespan;
 		
-		// Get n algorithms from the supplier
+		// Create n algorithms, each with its own seed
 		for(int i = 0; i < numThreads; i++)
-			algorithms.add(algorithmSupplier.get());		
+			algorithms.add(algorithmFactory.apply(RandomSource.deriveSeed(seed, i)));
+	}
+	
+	/**
+	 * Initialize the solver.
+	 * @param algorithmSupplier - A supplier that creates algorithm instances
+	 * @param numThreads - The number of algorithms that will run in parallel
+	 */
+	public Solver(Supplier<JSSPAlgorithm> algorithmSupplier, int numThreads, float terminationThreshold, int benchmarkMakespan) {
+		this((seed) -> algorithmSupplier.get(), numThreads, terminationThreshold, benchmarkMakespan, 0);
 	}
 
 	/**
@@ -63,59 +99,134 @@ public class Solver {
 	 * @param onFinish - A function called when the solver has finished working
 	 */
 	public void solve(int maxIterations, int epochSize, Consumer<JSSPAlgorithm> onFinish) {
-		if(!runningAlgorithms.isEmpty()) {
+		if(progress != null && progress.getRunningCount() > 0) {
 			System.err.println("[JSSP Solver] Already solving.");
 			return;
 		}
 		
-		epochsSinceImprovement = new HashMap<JSSPAlgorithm, Integer>();
-		
-		for(JSSPAlgorithm alg : algorithms) {
-			runningAlgorithms.add(alg);
+		epochsSinceImprovement = new ConcurrentHashMap<JSSPAlgorithm, Integer>();
+		for(JSSPAlgorithm alg : algorithms)
 			epochsSinceImprovement.put(alg, 0);
+		
+		progress = new ProgressAggregator(algorithms.size());
+		
+		// Workers are created once and reused by every epoch
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(numWorkers, algorithms.size()));
+		
+		try {
+			if(asynchronous)
+				solveAsynchronously(executor, maxIterations, epochSize);
+			else
+				solveSynchronously(executor, maxIterations, epochSize);
+		}
+		finally {
+			executor.shutdown();
 		}
 		
-		while(!runningAlgorithms.isEmpty()) {
-			List<Thread> threads = new ArrayList<Thread>();
-			final List<JSSPAlgorithm> toStop = new ArrayList<JSSPAlgorithm>();
-			final List<Float> avgTimesPerIter = new ArrayList<Float>();
+		onFinish.accept(getBestAlgorithm());
+	}
+	
+	/**
+	 * Run epochs for all running algorithms, waiting for all of them to be finished before starting the next epoch.
+	 * @param executor - The worker pool
+	 * @param maxIterations - The maximum number of iterations to run for
+	 * @param epochSize - The number of iterations per epoch
+	 */
+	private void solveSynchronously(ExecutorService executor, int maxIterations, int epochSize) {
+		while(progress.getRunningCount() > 0) {
+			// Inject migrants before starting the epoch, so that all algorithms receive what was sent during the previous epoch
+			for(int i = 0; i < algorithms.size(); i++)
+				if(progress.get(i).isRunning())
+					receiveMigrant(i);
 			
-			// For each running algorithm, start a new thread to run an epoch 
-			for(int i = 0; i < runningAlgorithms.size(); i++) {
-				final JSSPAlgorithm alg = runningAlgorithms.get(i);
-					
-				Thread thr = new Thread(() -> {
-					long epochStartTime = System.currentTimeMillis();
-					int ranIterations = alg.getRanIterations();
-					
-					boolean keepGoing = runEpoch(alg, epochSize, maxIterations);
-					if(!keepGoing)
-						toStop.add(alg);
-					
-					avgTimesPerIter.add((System.currentTimeMillis() - epochStartTime) / (float) (alg.getRanIterations() - ranIterations));					
-				});
-				threads.add(thr);
-				thr.start();
+			// For each running algorithm, submit a task that runs an epoch
+			List<Integer> running = new ArrayList<Integer>();
+			List<Future<EpochResult>> futures = new ArrayList<Future<EpochResult>>();
+			for(int i = 0; i < algorithms.size(); i++) {
+				if(progress.get(i).isRunning()) {
+					final int index = i;
+					running.add(index);
+					futures.add(executor.submit(() -> runEpoch(index, epochSize, maxIterations)));
+				}
 			}
 			
-			// Wait for all threads to be finished
-			try {
-				for(Thread thr : threads)
-					thr.join();
-			}
-			catch(InterruptedException e) {
-				e.printStackTrace();
+			// Wait for all epochs to be finished
+			EpochResult[] results = new EpochResult[futures.size()];
+			for(int i = 0; i < futures.size(); i++)
+				results[i] = waitForEpoch(futures.get(i));
+			
+			// Decide which algorithms should stop once they have all finished the epoch, so that it doesn't depend on thread scheduling
+			List<Integer> toStop = new ArrayList<Integer>();
+			float avgTimePerIter = 0.0f;
+			for(int i = 0; i < results.length; i++) {
+				if(results[i].reachedMaxIterations || !shouldKeepGoing(running.get(i), epochSize, results[i].makespanBefore))
+					toStop.add(running.get(i));
+				avgTimePerIter += results[i].avgTimePerIter / results.length;
 			}
 			
-			// Remove algorithms that should stop running
-			runningAlgorithms.removeAll(toStop);
+			// Stop algorithms that should stop running
+			for(int index : toStop)
+				progress.setFinished(index);
 			
 			// Print state
-			System.out.println("\n############### " + (runningAlgorithms.isEmpty() ? "FINISHED" : ("Iteration " + runningAlgorithms.get(0).getRanIterations())) + " ###############");
-			printState(avgTimesPerIter);			
+			int ranIterations = progress.getRunningCount() == 0 ? 0 : progress.get(running.get(0)).getRanIterations();
+			printState(progress.getRunningCount() == 0 ? "FINISHED" : ("Iteration " + ranIterations), avgTimePerIter);
 		}
+	}
+	
+	/**
+	 * Let each algorithm run its epochs back to back, without waiting for the others.
+	 * Early termination decisions use the latest progress published by the other algorithms.
+	 * @param executor - The worker pool
+	 * @param maxIterations - The maximum number of iterations to run for
+	 * @param epochSize - The number of iterations per epoch
+	 */
+	private void solveAsynchronously(ExecutorService executor, int maxIterations, int epochSize) {
+		CountDownLatch finished = new CountDownLatch(algorithms.size());
+		long startTime = System.currentTimeMillis();
 		
-		onFinish.accept(getBestAlgorithm());
+		for(int i = 0; i < algorithms.size(); i++) {
+			final int index = i;
+			executor.execute(() -> runEpochsAsynchronously(executor, index, epochSize, maxIterations, finished));
+		}
+		
+		// Print the state periodically until all algorithms are finished
+		try {
+			while(!finished.await(ASYNC_PRINT_INTERVAL, TimeUnit.MILLISECONDS))
+				printState("Time " + (System.currentTimeMillis() - startTime) / 1000 + "s", progress.getAverageTimePerIteration());
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			e.printStackTrace();
+		}
+		
+		printState("FINISHED", progress.getAverageTimePerIteration());
+	}
+	
+	/**
+	 * Run an epoch of an algorithm, then re-submit the task to the pool if the algorithm should keep going.
+	 * Re-submitting instead of looping lets the workers be shared fairly when there are more algorithms than workers.
+	 * @param executor - The worker pool
+	 * @param index - The index of the algorithm
+	 * @param epochSize - The number of iterations per epoch
+	 * @param maxIterations - The maximum number of iterations to run for
+	 * @param finished - A latch counted down when the algorithm stops
+	 */
+	private void runEpochsAsynchronously(ExecutorService executor, int index, int epochSize, int maxIterations, CountDownLatch finished) {
+		try {
+			EpochResult result = runEpoch(index, epochSize, maxIterations);
+			if(!result.reachedMaxIterations && shouldKeepGoing(index, epochSize, result.makespanBefore)) {
+				executor.execute(() -> runEpochsAsynchronously(executor, index, epochSize, maxIterations, finished));
+				return;
+			}
+		}
+		catch(RuntimeException e) {
+			System.err.println("[JSSP Solver] An algorithm failed during an epoch.");
+			e.printStackTrace();
+		}
+		
+		progress.setFinished(index);
+		finished.countDown();
 	}
 	
 	/**
@@ -127,7 +238,7 @@ public class Solver {
 		int bestMakespan = Integer.MAX_VALUE;
 		
 		for(JSSPAlgorithm alg : algorithms) {
-			int makespan = alg.computeMakespan(alg.getBestSolution());
+			int makespan = alg.computeMakespan(alg.getBestSchedule());
 			if(makespan < bestMakespan) {
 				best = alg;
 				bestMakespan = makespan;
@@ -138,49 +249,113 @@ public class Solver {
 	}
 	
 	/**
-	 * Calculate the average of the best makespan of all algorithms still running.
-	 * @return the average makespan
+	 * Run a single epoch for the given algorithm, and publish its progress.
+	 * With an island model, the algorithm sends its best schedule at the end of the epoch if a migration interval has elapsed.
+	 * In asynchronous mode, it also injects the schedule it received before starting the epoch.
+	 * @param index - The index of an algorithm
+	 * @param epochSize - The number of iterations per epoch
+	 * @param maxTotalIterations - The maximum number of iterations the algorithm should run
+	 * @return the result of the epoch
+	 */
+	private EpochResult runEpoch(int index, int epochSize, int maxTotalIterations) {
+		JSSPAlgorithm alg = algorithms.get(index);
+		EpochResult result = new EpochResult();
+		long epochStartTime = System.currentTimeMillis();
+		int ranIterations = alg.getRanIterations();
+		
+		if(asynchronous)
+			receiveMigrant(index);
+		
+		result.makespanBefore = alg.getBestOverallMakespan();
+		
+		for(int i = 0; i < epochSize && !result.reachedMaxIterations; i++) {
+			alg.runIteration();
+			result.reachedMaxIterations = alg.getRanIterations() == maxTotalIterations;
+		}
+		
+		// Improve the best schedule of the algorithm with a short tabu search, and give it back to the algorithm
+		if(tabuSearches != null) {
+			int[] improved = tabuSearches[index].improve(alg.normalizeSchedule(alg.getBestSchedule()), tabuTimeBudget, alg.getRandom());
+			if(alg.computeMakespan(improved) < alg.getBestOverallMakespan())
+				alg.injectSolution(improved);
+		}
+		
+		if(islandModel != null) {
+			int interval = islandModel.getMigrationInterval();
+			if(alg.getRanIterations() / interval != ranIterations / interval)
+				islandModel.emigrate(index, alg.normalizeSchedule(alg.getBestSchedule()), alg.getBestOverallMakespan(), alg.getRandom());
+		}
+		
+		result.avgTimePerIter = (System.currentTimeMillis() - epochStartTime) / (float) (alg.getRanIterations() - ranIterations);
+		progress.publish(index, alg.getRanIterations(), alg.getBestOverallMakespan(), result.avgTimePerIter, describe(alg));
+		return result;
+	}
+	
+	/**
+	 * Inject the schedule received by an algorithm since its last epoch, if any.
+	 * @param index - The index of an algorithm
 	 */
-	private float calculateAverageBestMakespan() {
-		float avg = 0.0f;
-		for(JSSPAlgorithm alg : runningAlgorithms)
-			avg += alg.getBestOverallMakespan() / (float) runningAlgorithms.size();
-		return avg;
+	private void receiveMigrant(int index) {
+		if(islandModel == null)
+			return;
+		
+		int[] immigrant = islandModel.immigrate(index);
+		if(immigrant != null)
+			algorithms.get(index).injectSolution(immigrant);
 	}
 	
 	/**
-	 * Run a single epoch for the given algorithm.
-	 * @param alg - An algorithm
-	 * @param epochSize - The number of iterations per epoch
-	 * @param maxTotalIterations - The maximum number of iterations the algorithm should run
-	 * @return true if the algorithm should keep going after this epoch, false if it has finished running or if it should be early-stopped
+	 * Wait for an epoch to be finished and get its result.
+	 * An algorithm that failed during the epoch is reported and considered as finished.
+	 * @param future - The future result of an epoch
+	 * @return the result of the epoch
 	 */
-	private boolean runEpoch(JSSPAlgorithm alg, int epochSize, int maxTotalIterations) {
-		int makespanBefore = alg.getBestOverallMakespan();
-
-		for(int i = 0; i < epochSize; i++) {
-			alg.runIteration();
-			if(alg.getRanIterations() == maxTotalIterations)
-				return false;
+	private EpochResult waitForEpoch(Future<EpochResult> future) {
+		try {
+			return future.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			e.printStackTrace();
+		}
+		catch(ExecutionException e) {
+			System.err.println("[JSSP Solver] An algorithm failed during an epoch.");
+			e.getCause().printStackTrace();
 		}
 		
+		EpochResult failed = new EpochResult();
+		failed.reachedMaxIterations = true;
+		return failed;
+	}
+	
+	/**
+	 * Decide whether an algorithm should keep going after an epoch, or be early-stopped.
+	 * Relies on the progress published by the algorithms rather than on their current state.
+	 * @param index - The index of an algorithm
+	 * @param epochSize - The number of iterations per epoch
+	 * @param makespanBefore - The best makespan of the algorithm before the epoch
+	 * @return true if the algorithm should keep going, false if it should be early-stopped
+	 */
+	private boolean shouldKeepGoing(int index, int epochSize, int makespanBefore) {
 		float patience = 15.0f;
+		JSSPAlgorithm alg = algorithms.get(index);
+		ProgressAggregator.Snapshot snapshot = progress.get(index);
 
 		/** EARLY TERMINATION */
-		if(alg.getRanIterations() > epochSize * 2) {
-			int makespan = alg.getBestOverallMakespan();
+		if(snapshot.getRanIterations() > epochSize * 2) {
+			int makespan = snapshot.getBestMakespan();
+			int running = progress.getRunningCount();
 			
 			// Proportion of threads still running
-			float m = runningAlgorithms.size() / (float) algorithms.size();
+			float m = running / (float) algorithms.size();
 			
 			// (best_makespan - average_makespan) / (max(best_makespan - average_makespan) for all threads)
 			float delta = 0.0f;
-			if(runningAlgorithms.size() > 1) {
-				float averageBestMakespan = calculateAverageBestMakespan();
-				float biggestMakespanDifference = runningAlgorithms.stream()
-						.map((algo) -> Math.abs(algo.getBestOverallMakespan() - averageBestMakespan))
-						.max(Float::compare).get();
-				delta = (makespan - averageBestMakespan) / biggestMakespanDifference;
+			if(running > 1) {
+				float averageBestMakespan = progress.getAverageBestMakespan();
+				float biggestMakespanDifference = progress.getLargestDifference(averageBestMakespan);
+				if(biggestMakespanDifference > 0)
+					delta = (makespan - averageBestMakespan) / biggestMakespanDifference;
 			}		
 			
 			// Update number of iterations since last makespan improvement
@@ -194,48 +369,118 @@ public class Solver {
 	}
 	
 	/**
-	 * Prints the current state of the solver (called after the end of each epoch).
-	 * @param running - A list of running algorithms
-	 * @param avgTimesPerIter - The average time per iteration for each algorithm, during the last epoch
+	 * Set the number of worker threads used to run the algorithms (the number of algorithm instances can be higher).
+	 * @param numWorkers - A number of threads, or 0 to use the number of available processors
+	 */
+	public void setNumberOfWorkers(int numWorkers) {
+		this.numWorkers = numWorkers > 0 ? numWorkers : Runtime.getRuntime().availableProcessors();
+	}
+	
+	/**
+	 * Set the island model used to share the best schedules between algorithms.
+	 * Migrations are checked at the end of each epoch, so the effective interval is rounded up to a multiple of the epoch size.
+	 * @param islandModel - An island model with as many islands as algorithms, or null for independent algorithms
+	 */
+	public void setIslandModel(IslandModel islandModel) {
+		this.islandModel = islandModel;
+	}
+	
+	/**
+	 * Apply a tabu search to the best schedule of each algorithm at the end of each epoch.
+	 * The search is bounded by time, so runs using it are not reproducible unless it stops on its iteration limit first.
+	 * @param tabuSearchFactory - A function that creates a tabu search (one is created for each algorithm)
+	 * @param timeBudget - The time budget of each search (ms)
+	 */
+	public void setEpochTabuSearch(Supplier<TabuSearch> tabuSearchFactory, long timeBudget) {
+		this.tabuSearches = new TabuSearch[algorithms.size()];
+		for(int i = 0; i < tabuSearches.length; i++)
+			tabuSearches[i] = tabuSearchFactory.get();
+		this.tabuTimeBudget = timeBudget;
+	}
+	
+	/**
+	 * Set whether algorithms run their epochs without waiting for each other.
+	 * Asynchronous runs use all workers continuously, but early termination then depends on thread scheduling.
+	 * @param asynchronous - true for asynchronous epochs, false to synchronize all algorithms at the end of each epoch
+	 */
+	public void setAsynchronous(boolean asynchronous) {
+		this.asynchronous = asynchronous;
+	}
+	
+	/**
+	 * Prints the current state of the solver (called after the end of each epoch, or periodically in asynchronous mode).
+	 * Only uses the published progress, so it can be called while algorithms are running.
+	 * @param title - The title of the state
+	 * @param avgTimePerIter - The average time per iteration, during the last epoch
 	 */
-	private void printState(List<Float> avgTimesPerIter) {
+	private void printState(String title, float avgTimePerIter) {
 		Locale l = Locale.ENGLISH;
 		
-		float avgTimePerIter = 0.0f;
-		for(float f : avgTimesPerIter)
-			avgTimePerIter += f / avgTimesPerIter.size();
-		
-		System.out.println("Still running: " + runningAlgorithms.size());
+		System.out.println("\n############### " + title + " ###############");
+		System.out.println("Still running: " + progress.getRunningCount());
 		System.out.println("Average time per iteration: " + Math.round(100 * avgTimePerIter) / 100.0 + " ms");
-		JSSPAlgorithm bestAlg = getBestAlgorithm();
 		
-		int bestMakespan = bestAlg.computeMakespan(bestAlg.getBestSolution());
+		int bestMakespan = Integer.MAX_VALUE;
+		for(int i = 0; i < progress.size(); i++)
+			bestMakespan = Math.min(bestMakespan, progress.get(i).getBestMakespan());
+		
 		String bestMakespanString = "Best makespan achieved globally: " + bestMakespan;
 		if(benchmarkMakespan != 0)
 			bestMakespanString += " (benchmark: " + benchmarkMakespan + "; " + (100 * (bestMakespan - benchmarkMakespan) / (float) benchmarkMakespan) + "% off)";
 		
 		System.out.println(bestMakespanString);
-		for(int i = 0; i < algorithms.size(); i++) {
-			JSSPAlgorithm alg = algorithms.get(i);
-			String algStr = "[alg " + String.format(l, "%03d", i+1) + (runningAlgorithms.contains(alg) ? "*" : "-") + "]";
-			algStr += " best_makespan=" + String.format(l, "%04d", alg.computeMakespan(alg.getBestSolution()));
-			
-			// Print PSO-specific info
-			if(alg instanceof PSOAlgorithm) {
-				PSOAlgorithm pso = (PSOAlgorithm) alg;
-				algStr += " inertia=" + String.format(l, "%.4f", pso.getInertia());
-				algStr += " swarm_best=" + String.format(l, "%04d", -pso.getSwarm().getFittest().getFitness());
-				algStr += " swarm_avg=" + String.format(l, "%06.4f", -pso.getSwarm().getAverageFitness());
-			}	
-			// Print ASO-specific info
-			else if(alg instanceof ACOAlgorithm) {
-				ACOAlgorithm aco = (ACOAlgorithm) alg;
-				algStr += " colony_best=" + String.format(l, "%04d", aco.getColony().getBestAnt().getMakespan());
-				algStr += " colony_avg=" + String.format(l, "%06.4f", aco.getColony().getAverageMakespan());
-			}
-			
+		for(int i = 0; i < progress.size(); i++) {
+			ProgressAggregator.Snapshot snapshot = progress.get(i);
+			String algStr = "[alg " + String.format(l, "%03d", i+1) + (snapshot.isRunning() ? "*" : "-") + "]";
+			algStr += " best_makespan=" + String.format(l, "%04d", snapshot.getBestMakespan());
+			algStr += " ms_per_iter=" + String.format(l, "%.2f", snapshot.getAvgTimePerIter());
+			algStr += snapshot.getDetails();
 			System.out.println(algStr);
 		}
 	}
-
+	
+	/**
+	 * Describe the algorithm-specific state of an algorithm. Must be called by the thread running the algorithm.
+	 * @param alg - An algorithm
+	 * @return a description of the state, to be appended to the algorithm's line in the printed state
+	 */
+	private static String describe(JSSPAlgorithm alg) {
+		Locale l = Locale.ENGLISH;
+		String algStr = "";
+		
+		// Print PSO-specific info
+		if(alg instanceof PSOAlgorithm) {
+			PSOAlgorithm pso = (PSOAlgorithm) alg;
+			algStr += " inertia=" + String.format(l, "%.4f", pso.getInertia());
+			algStr += " swarm_best=" + String.format(l, "%04d", -pso.getSwarm().getFittest().getFitness());
+			algStr += " swarm_avg=" + String.format(l, "%06.4f", -pso.getSwarm().getAverageFitness());
+			algStr += " unchanged=" + String.format(l, "%.1f", 100 * pso.getSwarm().getUnchangedUpdateRate()) + "%";
+		}	
+		// Print ASO-specific info
+		else if(alg instanceof ACOAlgorithm) {
+			ACOAlgorithm aco = (ACOAlgorithm) alg;
+			algStr += " colony_best=" + String.format(l, "%04d", aco.getColony().getBestAnt().getMakespan());
+			algStr += " colony_avg=" + String.format(l, "%06.4f", aco.getColony().getAverageMakespan());
+			algStr += " restarts=" + aco.getColony().getRestarts();
+		}
+		
+		if(alg.getMakespanCache() != null)
+			algStr += " cache_hits=" + String.format(l, "%.1f", 100 * alg.getMakespanCache().getHitRate()) + "%";
+		
+		return algStr;
+	}
+	
+	/**
+	 * Store the outcome of an epoch run by a worker.
+	 */
+	private static class EpochResult {
+		// The best makespan of the algorithm before the epoch
+		private int makespanBefore;
+		
+		// Whether the algorithm has reached the maximum number of iterations
+		private boolean reachedMaxIterations;
+		
+		// The average time per iteration during the epoch (ms)
+		private float avgTimePerIter;
+	}
 }
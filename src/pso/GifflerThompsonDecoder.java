@@ -0,0 +1,307 @@
+package pso;
+
+import java.util.Arrays;
+
+import jssp.ActiveScheduleDecoder;
+import jssp.ProblemInstance;
+
+/**
+ * Decodes positions into active schedules with the Giffler-Thompson algorithm, using the keys as operation priorities.
+ * At each step, the schedulable operation that can complete first defines a machine and a completion time; among the
+ * schedulable operations of that machine that can start before that time (the conflict set), the one with the lowest key
+ * is scheduled.
+ * The conflict set can be narrowed to the operations starting before a fraction delta of the interval between the earliest
+ * start and the earliest completion on the machine (parameterized active schedules): delta = 0 gives non-delay schedules.
+ * Each step scans the next operation of every job, using primitive ready times of jobs and machines.
+ * To detect positions that decode to the same order (see isUnchanged), the operations of each machine are also kept sorted
+ * by key, but only while that check skips enough decodes to pay for the sort.
+ * A decoder owns its buffers: it should not be shared between threads, and the returned order is only valid until the next decode.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class GifflerThompsonDecoder implements PositionDecoder {
+	// Number of checks after which the share of skipped decodes is measured, and minimal share (1 / SKIP_RATIO) that keeps
+	// the keys sorted (sorting and checking cost a few percent of a decode)
+	private static final int CHECK_WINDOW = 64;
+	private static final int SKIP_RATIO = 16;
+	
+	// Number of decodes after which keys are sorted again to measure the share of skipped decodes, once sorting was stopped
+	private static final int RETRY_INTERVAL = 1024;
+	
+	// The problem instance
+	private ProblemInstance pb;
+	
+	// Index (within its job) of the next operation of each job
+	private int[] nextOperationInJob;
+	
+	// Time at which each job and each machine becomes available
+	private int[] jobTimes, machineTimes;
+	
+	// Jobs that still have operations to schedule, stored in the first eligibleJobsCount cells
+	private int[] eligibleJobs;
+	private int eligibleJobsCount;
+	
+	// Width of the conflict set, between 0 (non-delay schedules) and 1 (all active schedules)
+	private float delta;
+	
+	// The decoded order of operations (actual operation indices), its makespan, and the first step that changed at the last decode
+	// (always 0 unless changes are tracked)
+	private int[] order;
+	private int makespan;
+	private int firstChange;
+	private boolean trackingChanges;
+	
+	// Operations of each machine sorted by key at the last decode (machine k uses cells [machineOffsets[k], machineOffsets[k+1]))
+	private int[] keyOrder;
+	private int[] machineOffsets;
+	private boolean decoded;
+	
+	// Whether keys are sorted at each decode, whether keyOrder matches the last decode, and statistics used to decide
+	private boolean sortingKeys = true;
+	private boolean keysSorted;
+	private int checks, skips, decodesWithoutSorting;
+	
+	// Decoder and buffers used to encode schedules (created on the first encode)
+	private ActiveScheduleDecoder activeDecoder;
+	private int[] startTimes;
+	private long[] ranks;
+	
+	/**
+	 * Create a decoder for a given problem instance.
+	 * @param pb - A problem instance
+	 * @param delta - The width of the conflict set, between 0 (non-delay schedules) and 1 (all active schedules)
+	 */
+	public GifflerThompsonDecoder(ProblemInstance pb, float delta) {
+		if(delta < 0 || delta > 1)
+			throw new IllegalArgumentException("The width of the conflict set (delta) must be in [0,1]");
+		
+		this.pb = pb;
+		this.delta = delta;
+		nextOperationInJob = new int[pb.getNumberOfJobs()];
+		jobTimes = new int[pb.getNumberOfJobs()];
+		machineTimes = new int[pb.getNumberOfMachines()];
+		eligibleJobs = new int[pb.getNumberOfJobs()];
+		order = new int[pb.getTotalOperations()];
+		
+		keyOrder = new int[pb.getTotalOperations()];
+		machineOffsets = new int[pb.getNumberOfMachines() + 1];
+		for(int op = 0; op < pb.getTotalOperations(); op++)
+			machineOffsets[pb.getMachine(op) + 1]++;
+		for(int k = 0; k < pb.getNumberOfMachines(); k++)
+			machineOffsets[k+1] += machineOffsets[k];
+		int[] next = Arrays.copyOf(machineOffsets, pb.getNumberOfMachines());
+		for(int op = 0; op < pb.getTotalOperations(); op++)
+			keyOrder[next[pb.getMachine(op)]++] = op;
+	}
+	
+	/**
+	 * Get the order of operations from a position stored in a larger array.
+	 * The key at index i is the priority of operation i (lower keys are scheduled first when they conflict).
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return an array containing actual operation indices in running order (owned by this decoder)
+	 */
+	@Override
+	public int[] decode(float[] positions, int offset) {
+		Arrays.fill(nextOperationInJob, 0);
+		Arrays.fill(jobTimes, 0);
+		Arrays.fill(machineTimes, 0);
+		eligibleJobsCount = 0;
+		makespan = 0;
+		firstChange = trackingChanges && decoded ? order.length : 0;
+		for(int job = 0; job < pb.getNumberOfJobs(); job++)
+			if(pb.getNumberOfOperations(job) > 0)
+				eligibleJobs[eligibleJobsCount++] = job;
+		
+		for(int step = 0; step < order.length; step++) {
+			// Find the earliest completion time among the schedulable operations, and its machine
+			int earliestEnd = Integer.MAX_VALUE, conflictMachine = -1;
+			for(int i = 0; i < eligibleJobsCount; i++) {
+				int job = eligibleJobs[i];
+				int op = pb.getOperationIndex(job, nextOperationInJob[job]);
+				int machine = pb.getMachine(op);
+				int end = Math.max(jobTimes[job], machineTimes[machine]) + pb.getDuration(op);
+				if(end < earliestEnd) {
+					earliestEnd = end;
+					conflictMachine = machine;
+				}
+			}
+			
+			// Earliest start time on that machine
+			int earliestStart = Integer.MAX_VALUE;
+			for(int i = 0; i < eligibleJobsCount; i++) {
+				int job = eligibleJobs[i];
+				int op = pb.getOperationIndex(job, nextOperationInJob[job]);
+				if(pb.getMachine(op) == conflictMachine)
+					earliestStart = Math.min(earliestStart, Math.max(jobTimes[job], machineTimes[conflictMachine]));
+			}
+			int threshold = earliestStart + (int) Math.ceil(delta * (earliestEnd - earliestStart));
+			
+			// Among the operations of that machine that can start before the threshold, choose the one with the lowest key
+			// (operations starting first are always in the conflict set, even with zero durations)
+			int chosenIndex = -1, chosen = -1;
+			for(int i = 0; i < eligibleJobsCount; i++) {
+				int job = eligibleJobs[i];
+				int op = pb.getOperationIndex(job, nextOperationInJob[job]);
+				if(pb.getMachine(op) != conflictMachine)
+					continue;
+				int start = Math.max(jobTimes[job], machineTimes[conflictMachine]);
+				if(start > earliestStart && start >= threshold)
+					continue;
+				if(chosen < 0 || positions[offset + op] < positions[offset + chosen]) {
+					chosenIndex = i;
+					chosen = op;
+				}
+			}
+			
+			// Schedule the chosen operation
+			int job = pb.getJob(chosen);
+			int end = Math.max(jobTimes[job], machineTimes[conflictMachine]) + pb.getDuration(chosen);
+			jobTimes[job] = end;
+			machineTimes[conflictMachine] = end;
+			makespan = Math.max(makespan, end);
+			if(firstChange > step && order[step] != chosen)
+				firstChange = step;
+			order[step] = chosen;
+			
+			// Remove the job from the eligible ones once all its operations are scheduled
+			if(++nextOperationInJob[job] == pb.getNumberOfOperations(job))
+				eligibleJobs[chosenIndex] = eligibleJobs[--eligibleJobsCount];
+		}
+		
+		// Sort the keys while isUnchanged skips enough decodes, and every RETRY_INTERVAL decodes to measure it again
+		if(!sortingKeys && ++decodesWithoutSorting >= RETRY_INTERVAL) {
+			sortingKeys = true;
+			decodesWithoutSorting = 0;
+		}
+		if(sortingKeys)
+			sortKeys(positions, offset);
+		keysSorted = sortingKeys;
+		decoded = true;
+		return order;
+	}
+	
+	/**
+	 * Check whether the keys of the operations of each machine are still in the order they had at the last decode.
+	 * Keys are only compared between operations of the same machine, so the decoded order only depends on these orders.
+	 * Returns false without checking when the keys weren't sorted at the last decode. Sorting stops when fewer than one check
+	 * in SKIP_RATIO skips a decode.
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return true if decoding the position would give the same order
+	 */
+	@Override
+	public boolean isUnchanged(float[] positions, int offset) {
+		if(!keysSorted)
+			return false;
+		
+		boolean unchanged = isSorted(positions, offset);
+		if(unchanged)
+			skips++;
+		if(++checks == CHECK_WINDOW) {
+			sortingKeys = skips * SKIP_RATIO >= checks;
+			checks = 0;
+			skips = 0;
+		}
+		return unchanged;
+	}
+	
+	/**
+	 * Check whether the keys of the operations of each machine are sorted in the order of keyOrder.
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return true if keys are strictly increasing on each machine
+	 */
+	private boolean isSorted(float[] positions, int offset) {
+		for(int k = 0; k < machineOffsets.length - 1; k++) {
+			for(int i = machineOffsets[k] + 1; i < machineOffsets[k+1]; i++) {
+				// Ties are treated as changes, since the decoder breaks them on the order of the jobs
+				if(!(positions[offset + keyOrder[i-1]] < positions[offset + keyOrder[i]]))
+					return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Get the makespan of the schedule built by the last decode.
+	 * Operations are only appended at the end of their machine, so this is also the makespan of the order decoded semi-actively.
+	 * @return the makespan
+	 */
+	@Override
+	public int getMakespan() {
+		return makespan;
+	}
+	
+	/**
+	 * Start tracking the first step at which each decode chooses a different operation than the decode before it.
+	 */
+	@Override
+	public void trackChanges() {
+		trackingChanges = true;
+	}
+	
+	/**
+	 * Get the first step at which the last decode chose a different operation than the decode before it.
+	 * @return a position in the order (0 after the first decode or if changes aren't tracked, the number of operations if both
+	 * orders are the same)
+	 */
+	@Override
+	public int getFirstChange() {
+		return firstChange;
+	}
+	
+	/**
+	 * Write a position that decodes to a given schedule, and check it by decoding it.
+	 * The schedule is decoded actively, and keys rank the operations by start time in that active schedule. With delta = 1,
+	 * the decoder then builds that active schedule again. A smaller delta may exclude it: the decoded schedule is then a
+	 * parameterized active schedule built with the same priorities, and may be worse.
+	 * @param schedule - A complete order of operations, using actual operation indices (see JSSPAlgorithm.normalizeSchedule)
+	 * @param positions - An array in which the position is written
+	 * @param offset - The index of the first key of the position in the array
+	 * @param xmin - The lower bound of the position range
+	 * @param xmax - The upper bound of the position range
+	 * @return true if the position decodes to a schedule whose makespan is at most the active makespan of the given schedule
+	 */
+	@Override
+	public boolean encode(int[] schedule, float[] positions, int offset, float xmin, float xmax) {
+		int n = order.length;
+		if(activeDecoder == null) {
+			activeDecoder = new ActiveScheduleDecoder(pb);
+			startTimes = new int[n];
+			ranks = new long[n];
+		}
+		int activeMakespan = activeDecoder.decode(schedule, n, startTimes);
+		
+		// Sort the operations by start time, keeping the order of the schedule for ties (operations of different machines)
+		for(int i = 0; i < n; i++)
+			ranks[i] = ((long) startTimes[schedule[i]] << 32) | i;
+		Arrays.sort(ranks);
+		
+		for(int r = 0; r < n; r++)
+			positions[offset + schedule[(int) ranks[r]]] = xmin + (r + 0.5f) * (xmax - xmin) / n;
+		
+		decode(positions, offset);
+		return makespan <= activeMakespan;
+	}
+	
+	/**
+	 * Sort the operations of each machine by key. Uses an insertion sort, which is linear when the order didn't change much
+	 * since the last decode.
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 */
+	private void sortKeys(float[] positions, int offset) {
+		for(int k = 0; k < machineOffsets.length - 1; k++) {
+			for(int i = machineOffsets[k] + 1; i < machineOffsets[k+1]; i++) {
+				int op = keyOrder[i];
+				float key = positions[offset + op];
+				int j = i - 1;
+				while(j >= machineOffsets[k] && positions[offset + keyOrder[j]] > key) {
+					keyOrder[j+1] = keyOrder[j];
+					j--;
+				}
+				keyOrder[j+1] = op;
+			}
+		}
+	}
+}
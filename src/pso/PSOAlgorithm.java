@@ -1,9 +1,9 @@
 package pso;
 
-import java.util.Arrays;
-
+import jssp.CheckpointedEvaluator;
 import jssp.JSSPAlgorithm;
 import jssp.ProblemInstance;
+import jssp.RandomSource;
 import main.Config;
 
 /**
@@ -22,27 +22,35 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 	
 	// Store min and max velocity so they can be enforced during the particle updates
 	private float vmin, vmax;
+	
+	// Store the position range so injected solutions can be encoded in it
+	private float xmin, xmax;
 
 	// Inertia weight
 	private float inertia, initialInertia, minInertia;
 	
 	// Local and global acceleration constants
 	private float c1, c2;
-
-	// Array of operation indices used for decoding to phenotype (saved so we don't have to recreate it each time)
-	private Integer[] tempOperationOrder;
+	
+	// Decoders turning positions into orders of operations
+	public static final String RANDOM_KEY = "random-key";
+	public static final String GIFFLER_THOMPSON = "giffler-thompson";
+	
+	// The type of decoder used by the particles, and the width of the conflict set of the Giffler-Thompson decoder
+	private String decoderType;
+	private float decoderDelta;
+	
+	// Number of operations between two checkpoints of the particles' evaluators (0 to always evaluate schedules from the start)
+	private int checkpointInterval;
 	
 	/***
 	 * Initialize a Particle Swarm Optimization algorithm.
 	 * @param problemInstance - A JSSP problem instance
 	 * @param config - A configuration object
+	 * @param seed - The seed of the algorithm's random generator
 	 */
-	public PSOAlgorithm(ProblemInstance problemInstance, Config config) {
-		super(problemInstance);
-	
-		tempOperationOrder = new Integer[getProblemInstance().getTotalOperations()];
-		for(int i = 0; i < tempOperationOrder.length; i++)
-			tempOperationOrder[i] = i;
+	public PSOAlgorithm(ProblemInstance problemInstance, Config config, long seed) {
+		super(problemInstance, RandomSource.create(config.get("rng"), seed));
 		
 		this.maxIterations = config.getInt("maxIterations");
 		
@@ -54,9 +62,18 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 		
 		this.c1 = config.getFloat("localAccelerationConstant");
 		this.c2 = config.getFloat("globalAccelerationConstant");
+		setInnerThreads(config.get("innerThreads") == null ? 1 : config.getInt("innerThreads"));
+		setDecoding(config.get("decoding") == null ? SEMI_ACTIVE : config.get("decoding"));
+		setMakespanCacheSize(config.get("makespanCacheSize") == null ? 0 : config.getInt("makespanCacheSize"));
+		this.decoderType = config.get("psoDecoder") == null ? RANDOM_KEY : config.get("psoDecoder");
+		this.decoderDelta = config.get("psoDecoderDelta") == null ? 1.0f : config.getFloat("psoDecoderDelta");
+		if(!decoderType.equals(RANDOM_KEY) && !decoderType.equals(GIFFLER_THOMPSON))
+			throw new IllegalArgumentException("Unknown position decoder '" + decoderType + "'");
+		this.checkpointInterval = config.get("checkpointInterval") == null ? 0 : config.getInt("checkpointInterval");
 		
 		int swarmSize = config.getInt("swarmSize");
-		float xmin = config.getFloat("xmin"), xmax = config.getFloat("xmax");
+		this.xmin = config.getFloat("xmin");
+		this.xmax = config.getFloat("xmax");
 
 		this.inertia = initialInertia;
 		
@@ -64,6 +81,15 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 		this.swarm = Swarm.randomSwarm(this, swarmSize, xmin, xmax, vmin, vmax);		
 	}
 	
+	/***
+	 * Initialize a Particle Swarm Optimization algorithm with an unseeded random generator.
+	 * @param problemInstance - A JSSP problem instance
+	 * @param config - A configuration object
+	 */
+	public PSOAlgorithm(ProblemInstance problemInstance, Config config) {
+		this(problemInstance, config, RandomSource.createSeed());
+	}
+	
 	/**
 	 * Get the particle swarm in this Particle Swarm Optimization
 	 * @return the swarm of particles
@@ -72,16 +98,34 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 		return swarm;
 	}
 	
+	/**
+	 * Create a decoder turning positions into orders of operations, of the type given in the configuration.
+	 * @return a new decoder
+	 */
+	public PositionDecoder createDecoder() {
+		if(decoderType.equals(GIFFLER_THOMPSON))
+			return new GifflerThompsonDecoder(getProblemInstance(), decoderDelta);
+		return new RandomKeyDecoder(getProblemInstance().getTotalOperations());
+	}
+	
+	/**
+	 * Create an evaluator that only replays the end of a schedule that changed since its last evaluation.
+	 * @return a new evaluator, or null if checkpoints are disabled or schedules are decoded actively
+	 */
+	public CheckpointedEvaluator createEvaluator() {
+		if(checkpointInterval <= 0 || isActiveDecoding())
+			return null;
+		return new CheckpointedEvaluator(getProblemInstance(), checkpointInterval);
+	}
+	
 	/**
 	 * Get the operation order from a given position.
+	 * The returned array is not shared; particles use their own decoder to avoid the allocation.
 	 * @param position - A position array
-	 * @return an array containing operation indices in running order
+	 * @return a new array containing operation indices in running order
 	 */
-	public Integer[] getOperationOrder(float[] position) {
-		// Sort an array of operation indices according to the position values
-		Arrays.sort(tempOperationOrder, (i1, i2) -> Float.compare(position[i1], position[i2]));
-		
-		return tempOperationOrder;
+	public int[] getOperationOrder(float[] position) {
+		return createDecoder().decode(position, 0);
 	}
 	
 	/**
@@ -90,7 +134,7 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 	 */
 	public int computeMakespan(float[] position) {
 		// Get the operation order
-		Integer[] operationOrder = getOperationOrder(position);
+		int[] operationOrder = getOperationOrder(position);
 		// Compute the makespan from it
 		return super.computeMakespan(operationOrder);
 	}
@@ -108,10 +152,10 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 		// Update the swarm's global best position and fitness
 		getSwarm().updateGlobalBest();
 	
-		// Update all particles in the swarm
-		for(Particle p : swarm.getParticles()) {
-			p.update(swarm.getGlobalBestPosition(), inertia, c1, c2, vmin, vmax);
-		}
+		// Update and evaluate all particles in the swarm (in parallel if enabled, the global best is only read)
+		Particle[] particles = swarm.getParticles();
+		float[] globalBestPosition = swarm.getGlobalBestPosition();
+		forEachIndex(particles.length, (i) -> particles[i].update(globalBestPosition, inertia, c1, c2, vmin, vmax));
 		
 		// Update inertia
 		if(inertia > minInertia) {
@@ -140,7 +184,10 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 	}
 	
 	@Override
-	public Integer[] getBestSolution() {
+	public int[] getBestSchedule() {
+		// An injected schedule that the decoder can't produce is kept as is
+		if(getSwarm().getGlobalBestSchedule() != null)
+			return getSwarm().getGlobalBestSchedule().clone();
 		float[] bestPosition = getSwarm().getGlobalBestPosition();
 		return getOperationOrder(bestPosition);
 	}
@@ -150,6 +197,11 @@ public class PSOAlgorithm extends JSSPAlgorithm {;
 		return -getSwarm().getGlobalBestFitness();
 	}
 	
+	@Override
+	public void injectSolution(int[] schedule) {
+		getSwarm().injectSolution(schedule, evaluateMakespan(schedule), xmin, xmax);
+	}
+	
 	@Override
 	public int getRanIterations() {
 		return ranIterations;
@@ -1,44 +1,84 @@
 package pso;
 
+import java.util.Arrays;
+
+import jssp.CheckpointedEvaluator;
+import jssp.RandomSource;
 import utils.CachedValue;
 
 /**
- * Represents a Particle in the context of Particle Swarm Optimization
+ * Represents a Particle in the context of Particle Swarm Optimization.
+ * The position, velocity and local best position of the particle are stored in the swarm's contiguous arrays.
  * @author Kelian Baert & Caroline de Pourtales
  */
 public class Particle {
 	// Store a reference to the PSO
 	private PSOAlgorithm alg;
 	
+	// The swarm this particle belongs to, and the index of the particle's first coordinate in the swarm's arrays
+	private Swarm swarm;
+	private int offset;
+	
 	// Fitness value, only refreshed when necessary
 	private CachedValue<Integer> fitness;
 	
-	// Position and velocity in the context of Particle Swarm Optimization
-	private float[] position;
-	private float[] velocity;
+	// Decoder from position to order of operations, owned by this particle
+	private PositionDecoder decoder;
+	
+	// Evaluator replaying only the end of the order that changed since the last evaluation (null if disabled)
+	private CheckpointedEvaluator evaluator;
+	
+	// Number of updates, and of updates after which the position decoded to the same order (the particle wasn't evaluated again)
+	private int updates, unchangedUpdates;
 	
-	// Store local best position
-	private float[] localBestPosition;
+	// Random generator of this particle, so that particles can be updated in parallel
+	private RandomSource random;
+	
+	// Random numbers used by an update, drawn in bulk before the update loop
+	private float[] localRandoms;
+	private float[] globalRandoms;
+	
+	// Store local best fitness (the position is stored in the swarm)
 	private int localBestFitness;
 	
 	/**
 	 * Initialize a Particle.
 	 * @param alg - A reference to the Particle Swarm Optimizer
+	 * @param swarm - The swarm this particle belongs to
+	 * @param index - The index of this particle in the swarm
 	 */
-	public Particle(PSOAlgorithm alg) {
-		this.alg = alg;	
+	public Particle(PSOAlgorithm alg, Swarm swarm, int index) {
+		this.alg = alg;
+		this.swarm = swarm;
+		this.offset = index * swarm.getDimensions();
+		this.random = alg.getRandom().split();
 		
-		position = new float[alg.getProblemInstance().getTotalOperations()];
-		velocity = new float[position.length];
+		localRandoms = new float[swarm.getDimensions()];
+		globalRandoms = new float[swarm.getDimensions()];
 		
-		localBestPosition = new float[position.length];
 		localBestFitness = Integer.MIN_VALUE;
 		
-		fitness = new CachedValue<Integer>(() -> -alg.computeMakespan(this.position));
+		decoder = alg.createDecoder();
+		evaluator = alg.createEvaluator();
+		if(evaluator != null)
+			decoder.trackChanges();
+		fitness = new CachedValue<Integer>(() -> {
+			int[] operationOrder = decoder.decode(swarm.getPositions(), offset);
+			
+			// Use the makespan computed by the decoder if it is the one of the algorithm's decoding, unless the cache may know it
+			if(decoder.getMakespan() >= 0 && !alg.isActiveDecoding() && alg.getMakespanCache() == null) {
+				if(evaluator != null)
+					evaluator.skip(decoder.getFirstChange());
+				return -decoder.getMakespan();
+			}
+			return -alg.evaluateMakespan(operationOrder, decoder.getFirstChange(), evaluator);
+		});
 	}
-
+	
 	/**
-	 * Updates this particle.
+	 * Updates this particle, and evaluates its new position.
+	 * Only uses the particle's own random generator, buffers and cells of the swarm's arrays, so particles can be updated in parallel.
+	 * The particle is only evaluated again if its new position decodes to a different order of operations.
 	 * @param globalBestPosition - The best position achieved by the swarm (highest fitness)
 	 * @param inertia - The inertia weight parameter
 	 * @param c1 - The acceleration constant that pulls this particle toward its local best
@@ -47,18 +87,72 @@ public class Particle {
 	 * @param vmax - The maximum velocity
 	 */
 	public void update(float[] globalBestPosition, float inertia, float c1, float c2, float vmin, float vmax) {
-		for(int j = 0; j < position.length; j++) {
+		int n = localRandoms.length;
+		
+		// Draw the random numbers in bulk so that the update loop has no calls and can be vectorized
+		random.nextFloats(localRandoms, 0, n);
+		random.nextFloats(globalRandoms, 0, n);
+		
+		float[] position = swarm.getPositions();
+		float[] velocity = swarm.getVelocities();
+		float[] localBestPosition = swarm.getLocalBestPositions();
+		
+		for(int j = 0; j < n; j++) {
+			int k = offset + j;
 			// Calculate new velocity
-			float v = inertia * velocity[j] + 
-				c1 * alg.random() * (localBestPosition[j]  - position[j]) +
-				c2 * alg.random() * (globalBestPosition[j] - position[j]);
+			float v = inertia * velocity[k] +
+				c1 * localRandoms[j] * (localBestPosition[k] - position[k]) +
+				c2 * globalRandoms[j] * (globalBestPosition[j] - position[k]);
 			// Keep velocity in bounds
-			velocity[j] = Math.min(vmax, Math.max(vmin, v));
+			v = Math.min(vmax, Math.max(vmin, v));
+			velocity[k] = v;
 			// Update position
-			position[j] += velocity[j];
+			position[k] += v;
 		}
+		
+		// An evaluation that is still pending (e.g. after a reset) is kept
+		updates++;
+		if(decoder.isUnchanged(position, offset))
+			unchangedUpdates++;
+		else
+			fitness.needsUpdating();
+		updateLocalBest();
+	}
+	
+	/**
+	 * Move this particle to the encoding of a given schedule by its decoder, and stop it.
+	 * @param schedule - A complete order of operations, using actual operation indices
+	 * @param xmin - The lower bound of the position range
+	 * @param xmax - The upper bound of the position range
+	 * @return true if the new position decodes to a schedule at least as good as the given one (see PositionDecoder.encode)
+	 */
+	protected boolean reset(int[] schedule, float xmin, float xmax) {
+		boolean encoded = decoder.encode(schedule, swarm.getPositions(), offset, xmin, xmax);
+		Arrays.fill(swarm.getVelocities(), offset, offset + localRandoms.length, 0);
+		
+		// The decoder may have decoded the new position while encoding it: the evaluator can't rely on its next first change
+		if(evaluator != null)
+			evaluator.skip(0);
+		
 		fitness.needsUpdating();
 		updateLocalBest();
+		return encoded;
+	}
+	
+	/**
+	 * Get the number of times this particle was updated.
+	 * @return a number of updates
+	 */
+	protected int getUpdates() {
+		return updates;
+	}
+	
+	/**
+	 * Get the number of updates after which the position decoded to the same order, so the particle wasn't evaluated again.
+	 * @return a number of updates
+	 */
+	protected int getUnchangedUpdates() {
+		return unchangedUpdates;
 	}
 	
 	/**
@@ -68,13 +162,13 @@ public class Particle {
 	protected int getLocalBestFitness() {
 		return localBestFitness;
 	}
-
+	
 	/**
-	 * Get the position for the best fitness achieved by this particle
-	 * @return the best local position
+	 * Get the index of this particle's first coordinate in the swarm's arrays.
+	 * @return an offset in the swarm's position, velocity and local best arrays
 	 */
-	protected float[] getLocalBestPosition() {
-		return localBestPosition;
+	protected int getOffset() {
+		return offset;
 	}
 	
 	/**
@@ -91,34 +185,39 @@ public class Particle {
 	private void updateLocalBest() {
 		if(getFitness() > localBestFitness) {
 			localBestFitness = getFitness();
-			for(int j = 0; j < position.length; j++)
-				localBestPosition[j] = position[j];
+			System.arraycopy(swarm.getPositions(), offset, swarm.getLocalBestPositions(), offset, localRandoms.length);
 		}
 	}
 	
 	/**
 	 * Create a random particle with the given ranges of position and velocities.
 	 * @param alg - A reference to the PSO algorithm this particle belongs to
+	 * @param swarm - The swarm this particle belongs to
+	 * @param index - The index of the particle in the swarm
 	 * @param xmin - The lower bound of the position range
 	 * @param xmax - The upper bound of the position range
 	 * @param vmin - The lower bound of the velocity range
 	 * @param vmax - The upper bound of the velocity range
 	 * @return a Particle
 	 */
-	public static Particle randomParticle(PSOAlgorithm alg, float xmin, float xmax, float vmin, float vmax) {
-		Particle p = new Particle(alg);
+	public static Particle randomParticle(PSOAlgorithm alg, Swarm swarm, int index, float xmin, float xmax, float vmin, float vmax) {
+		Particle p = new Particle(alg, swarm, index);
+		
+		float[] position = swarm.getPositions();
+		float[] velocity = swarm.getVelocities();
+		int n = swarm.getDimensions();
 		
 		// Random positions in given range
-		for(int i = 0; i < p.position.length; i++)
-			p.position[i] = xmin + alg.random() * (xmax - xmin);
+		for(int i = 0; i < n; i++)
+			position[p.offset + i] = xmin + alg.random() * (xmax - xmin);
 		
 		// Random velocities in given range
-		for(int i = 0; i < p.velocity.length; i++)
-			p.velocity[i] = vmin + alg.random() * (vmax - vmin);
+		for(int i = 0; i < n; i++)
+			velocity[p.offset + i] = vmin + alg.random() * (vmax - vmin);
 		
 		p.fitness.needsUpdating();
 		p.updateLocalBest();
 		
 		return p;
 	}
-}
\ No newline at end of file
+}
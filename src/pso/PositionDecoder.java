@@ -0,0 +1,57 @@
+package pso;
+
+/**
+ * Turns the position of a particle into an order of operations.
+ * A decoder owns its buffers: it should not be shared between threads, and the returned order is only valid until the next decode.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public interface PositionDecoder {
+	/**
+	 * Get the order of operations from a position stored in a larger array.
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return an array containing operation indices in running order (owned by this decoder)
+	 */
+	public int[] decode(float[] positions, int offset);
+	
+	/**
+	 * Check whether decoding a position would give the same order of operations as the last call to decode, without decoding it.
+	 * May return false when in doubt (e.g. before the first decode).
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return true if the order of operations would be the same
+	 */
+	public boolean isUnchanged(float[] positions, int offset);
+	
+	/**
+	 * Get the makespan of the schedule built by the last call to decode, for decoders that build one.
+	 * @return the makespan of the order decoded semi-actively, or -1 if the decoder doesn't compute it
+	 */
+	public int getMakespan();
+	
+	/**
+	 * Start tracking the first position at which each decoded order differs from the previous one (see getFirstChange).
+	 * Off by default, since only checkpointed evaluators use it and it costs a pass over the order at each decode.
+	 */
+	public void trackChanges();
+	
+	/**
+	 * Get the first position at which the order returned by the last call to decode differs from the order it returned before.
+	 * @return a position in the order (0 after the first decode or if changes aren't tracked, the number of operations if both
+	 * orders are the same)
+	 */
+	public int getFirstChange();
+	
+	/**
+	 * Write a position that decodes to a given schedule, and check it by decoding it.
+	 * Keys are the centers of n equal slices of the position range. Some decoders can't produce every schedule: the position
+	 * then decodes to a schedule built with the same priorities, which may be worse.
+	 * @param schedule - A complete order of operations, using actual operation indices (see JSSPAlgorithm.normalizeSchedule)
+	 * @param positions - An array in which the position is written
+	 * @param offset - The index of the first key of the position in the array
+	 * @param xmin - The lower bound of the position range
+	 * @param xmax - The upper bound of the position range
+	 * @return true if the position decodes to a schedule whose makespan is at most the one of the given schedule
+	 */
+	public boolean encode(int[] schedule, float[] positions, int offset, float xmin, float xmax);
+}
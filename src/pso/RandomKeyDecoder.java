@@ -0,0 +1,174 @@
+package pso;
+
+import java.util.Arrays;
+
+/**
+ * Decodes random-key positions into orders of operations, i.e. computes the permutation that sorts the keys.
+ * Uses a stable LSD radix sort on the bits of the float keys, so decoding is linear in the number of keys and does not box.
+ * A decoder owns its buffers: it should not be shared between threads, and the returned order is only valid until the next decode.
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class RandomKeyDecoder implements PositionDecoder {
+	// Number of bits sorted in each pass of the radix sort
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	
+	// Sortable integer representation of the keys, and the corresponding indices (double-buffered)
+	private int[] keys, tempKeys;
+	private int[] order, tempOrder;
+	
+	// Histogram of digits for a single pass
+	private int[] counts;
+	
+	// Whether order holds the result of a decode
+	private boolean decoded;
+	
+	// Copy of the order given by the last decode (order is overwritten by the sort), and the first position it changed at
+	// (null and 0 unless changes are tracked)
+	private int[] lastOrder;
+	private int firstChange;
+	
+	/**
+	 * Create a decoder for positions of a given size.
+	 * @param size - The number of keys in a position (i.e. the number of operations)
+	 */
+	public RandomKeyDecoder(int size) {
+		keys = new int[size];
+		tempKeys = new int[size];
+		order = new int[size];
+		tempOrder = new int[size];
+		counts = new int[RADIX];
+	}
+	
+	/**
+	 * Get the order of operations from a position stored in a larger array.
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return an array containing operation indices in running order (owned by this decoder)
+	 */
+	@Override
+	public int[] decode(float[] positions, int offset) {
+		int n = keys.length;
+		
+		// Map the floats to integers that have the same (unsigned) ordering as Float.compare
+		for(int i = 0; i < n; i++) {
+			int bits = Float.floatToRawIntBits(positions[offset + i]);
+			keys[i] = bits ^ ((bits >> 31) | 0x80000000);
+			order[i] = i;
+		}
+		
+		for(int shift = 0; shift < 32; shift += RADIX_BITS) {
+			// Build the histogram of the current digit
+			Arrays.fill(counts, 0);
+			for(int i = 0; i < n; i++)
+				counts[(keys[i] >>> shift) & (RADIX - 1)]++;
+			
+			// Skip the pass if all keys share the same digit (typically the case for the highest bits)
+			if(n == 0 || counts[(keys[0] >>> shift) & (RADIX - 1)] == n)
+				continue;
+			
+			// Turn counts into starting indices
+			int total = 0;
+			for(int d = 0; d < RADIX; d++) {
+				int c = counts[d];
+				counts[d] = total;
+				total += c;
+			}
+			
+			// Stable scatter into the temporary buffers
+			for(int i = 0; i < n; i++) {
+				int d = (keys[i] >>> shift) & (RADIX - 1);
+				int dest = counts[d]++;
+				tempKeys[dest] = keys[i];
+				tempOrder[dest] = order[i];
+			}
+			
+			int[] swap = keys;
+			keys = tempKeys;
+			tempKeys = swap;
+			swap = order;
+			order = tempOrder;
+			tempOrder = swap;
+		}
+		
+		// Compare with the previous order while saving the new one (a single pass, next to the passes of the sort)
+		if(lastOrder != null) {
+			firstChange = decoded ? n : 0;
+			for(int i = 0; i < n; i++) {
+				if(firstChange == n && order[i] != lastOrder[i])
+					firstChange = i;
+				lastOrder[i] = order[i];
+			}
+		}
+		
+		decoded = true;
+		return order;
+	}
+	
+	/**
+	 * Check whether the keys of a position are still sorted in the order given by the last decode.
+	 * Only consecutive keys of that order are compared: a key can only change rank by crossing one of its neighbours.
+	 * @param positions - An array containing the position
+	 * @param offset - The index of the first key of the position in the array
+	 * @return true if decoding the position would give the same order
+	 */
+	@Override
+	public boolean isUnchanged(float[] positions, int offset) {
+		if(!decoded)
+			return false;
+		
+		for(int r = 1; r < order.length; r++) {
+			// Ties are treated as changes, even if the sort is stable
+			if(!(positions[offset + order[r-1]] < positions[offset + order[r]]))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Sorting keys doesn't build a schedule, so the makespan is unknown.
+	 * @return -1
+	 */
+	@Override
+	public int getMakespan() {
+		return -1;
+	}
+	
+	/**
+	 * Start tracking the first position at which each decoded order differs from the previous one.
+	 * The sort overwrites its buffers, so the decoder then keeps a copy of each order.
+	 */
+	@Override
+	public void trackChanges() {
+		if(lastOrder == null)
+			lastOrder = Arrays.copyOf(order, order.length);
+	}
+	
+	/**
+	 * Get the first position at which the order given by the last decode differs from the order given before it.
+	 * @return a position in the order (0 after the first decode or if changes aren't tracked, the number of operations if both
+	 * orders are the same)
+	 */
+	@Override
+	public int getFirstChange() {
+		return firstChange;
+	}
+	
+	/**
+	 * Write a position that decodes to a given schedule: the key of the operation at rank r is the center of the r-th slice.
+	 * Decoding the position gives back the schedule, since the keys are distinct and sorted in its order.
+	 * @param schedule - A complete order of operations, using actual operation indices (see JSSPAlgorithm.normalizeSchedule)
+	 * @param positions - An array in which the position is written
+	 * @param offset - The index of the first key of the position in the array
+	 * @param xmin - The lower bound of the position range
+	 * @param xmax - The upper bound of the position range
+	 * @return true
+	 */
+	@Override
+	public boolean encode(int[] schedule, float[] positions, int offset, float xmin, float xmax) {
+		int n = schedule.length;
+		for(int r = 0; r < n; r++)
+			positions[offset + schedule[r]] = xmin + (r + 0.5f) * (xmax - xmin) / n;
+		return true;
+	}
+}
@@ -8,10 +8,21 @@ public class Swarm {
 	// The particles that make up the swarm
 	private Particle[] particles;
 	
+	// The number of dimensions of the search space (i.e. the number of operations)
+	private int dimensions;
+	
+	// State of all particles, stored contiguously (particle i uses the cells [i*dimensions, (i+1)*dimensions[)
+	private float[] positions;
+	private float[] velocities;
+	private float[] localBestPositions;
+	
 	// Store the best position achieved by the swarm, and its associated fitness
 	private float[] globalBestPosition;
 	private int globalBestFitness;
 	
+	// Injected schedule that is better than the decoding of any position, and whose encoding is the global best position (or null)
+	private int[] globalBestSchedule;
+	
 	/**
 	 * Initialize a Swarm.
 	 * @param alg - A reference to the Particle Swarm Optimizer
@@ -19,8 +30,12 @@ public class Swarm {
 	 */
 	private Swarm(PSOAlgorithm alg, int size) {
 		this.particles = new Particle[size];
+		this.dimensions = alg.getProblemInstance().getTotalOperations();
+		this.positions = new float[size * dimensions];
+		this.velocities = new float[size * dimensions];
+		this.localBestPositions = new float[size * dimensions];
 		this.globalBestFitness = Integer.MIN_VALUE;
-		this.globalBestPosition = new float[alg.getProblemInstance().getTotalOperations()];
+		this.globalBestPosition = new float[dimensions];
 	}
 	
 	/**
@@ -59,6 +74,19 @@ public class Swarm {
 		return averageFitness;
 	}
 	
+	/**
+	 * Get the proportion of particle updates after which the position decoded to the same order, so the particles weren't evaluated again.
+	 * @return a rate in [0,1] (0 if no particle was updated)
+	 */
+	public float getUnchangedUpdateRate() {
+		long updates = 0, unchanged = 0;
+		for(Particle p : particles) {
+			updates += p.getUpdates();
+			unchanged += p.getUnchangedUpdates();
+		}
+		return updates == 0 ? 0 : unchanged / (float) updates;
+	}
+	
 	/**
 	 * Find the best particle in the swarm, and update the swarm's global best as needed.
 	 */
@@ -66,13 +94,45 @@ public class Swarm {
 		for(Particle p : this.getParticles()) {
 			if(p.getLocalBestFitness() > globalBestFitness) {
 				globalBestFitness = p.getLocalBestFitness();
-				float[] pos = p.getLocalBestPosition();
-				for(int j = 0; j < pos.length; j++)
-					globalBestPosition[j] = pos[j];
+				System.arraycopy(localBestPositions, p.getOffset(), globalBestPosition, 0, dimensions);
+				globalBestSchedule = null;
 			}
 		}
 	}
 	
+	/**
+	 * Replace the worst particle of the swarm by a given schedule, and update the swarm's global best as needed.
+	 * If the decoder can't produce the schedule and it is better than the global best, it is kept as the global best schedule,
+	 * and its encoding becomes the global best position.
+	 * @param schedule - A complete order of operations, using actual operation indices
+	 * @param makespan - The makespan of the schedule
+	 * @param xmin - The lower bound of the position range
+	 * @param xmax - The upper bound of the position range
+	 */
+	protected void injectSolution(int[] schedule, int makespan, float xmin, float xmax) {
+		Particle worst = particles[0];
+		for(Particle p : particles)
+			if(p.getFitness() < worst.getFitness())
+				worst = p;
+		
+		boolean encoded = worst.reset(schedule, xmin, xmax);
+		updateGlobalBest();
+		
+		if(!encoded && -makespan > globalBestFitness) {
+			globalBestFitness = -makespan;
+			System.arraycopy(positions, worst.getOffset(), globalBestPosition, 0, dimensions);
+			globalBestSchedule = schedule.clone();
+		}
+	}
+	
+	/**
+	 * Get the injected schedule that is the best schedule of the swarm, if its position decodes to a worse schedule.
+	 * @return a complete order of operations, or null if the best schedule is the decoding of the global best position
+	 */
+	public int[] getGlobalBestSchedule() {
+		return globalBestSchedule;
+	}
+	
 	/**
 	 * Get the best position ever found by this swarm (i.e. the positionw with the highest fitness).
 	 * @return an array of coordinates
@@ -81,6 +141,38 @@ public class Swarm {
 		return globalBestPosition;
 	}
 	
+	/**
+	 * Get the number of dimensions of the search space.
+	 * @return the number of coordinates in a position
+	 */
+	public int getDimensions() {
+		return dimensions;
+	}
+	
+	/**
+	 * Get the positions of all particles, stored contiguously.
+	 * @return an array of size (number of particles * dimensions)
+	 */
+	protected float[] getPositions() {
+		return positions;
+	}
+	
+	/**
+	 * Get the velocities of all particles, stored contiguously.
+	 * @return an array of size (number of particles * dimensions)
+	 */
+	protected float[] getVelocities() {
+		return velocities;
+	}
+	
+	/**
+	 * Get the local best positions of all particles, stored contiguously.
+	 * @return an array of size (number of particles * dimensions)
+	 */
+	protected float[] getLocalBestPositions() {
+		return localBestPositions;
+	}
+	
 	/**
 	 * Get the best fitness ever attained by this swarm.
 	 * @return the finess associated with the best global position
@@ -103,7 +195,7 @@ public class Swarm {
 		Swarm s = new Swarm(alg, size);
 	
 		for(int i = 0; i < size; i++)
-			s.particles[i] = Particle.randomParticle(alg, xmin, xmax, vmin, vmax);
+			s.particles[i] = Particle.randomParticle(alg, s, i, xmin, xmax, vmin, vmax);
 		
 		return s;
 	}
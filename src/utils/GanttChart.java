@@ -173,7 +173,10 @@ public class GanttChart {
 		}
 
 		// generate list of colors
-		int njobs = rows[0].size();
+		int njobs = 0;
+		for(List<GanttTask> row : rows)
+			for(GanttTask task : row)
+				njobs = Math.max(njobs, task.category + 1);
 		List<Color> colors = new ArrayList<Color>();
 		Random rand = new Random();
 		for(int i = 0; i < njobs; i++) {
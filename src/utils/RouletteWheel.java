@@ -1,6 +1,6 @@
 package utils;
 
-import java.util.Random;
+import jssp.RandomSource;
 
 public class RouletteWheel {
     // Build a vector of cumulative fitnesses (allows for O(log2(n)) roulette wheel selection)
@@ -17,7 +17,7 @@ public class RouletteWheel {
 	
 
 	/** Uses binary search to achieve O(log2(n)) time complexity **/
-	public static int spin(Random rand, float[] cumulativeWeights) {
+	public static int spin(RandomSource rand, float[] cumulativeWeights) {
 		float sumOfWeights = cumulativeWeights[cumulativeWeights.length - 1];
 		float r = sumOfWeights * rand.nextFloat();
 		
@@ -40,16 +40,42 @@ public class RouletteWheel {
 	 * @param probabilities - An array of probabilities (or weights)
 	 * @return an index between 0 (inclusive) and the length of the probabilities array (exclusive)
 	 */
-	public static int spinOnce(Random rand, float[] probabilities) { 
+	public static int spinOnce(RandomSource rand, float[] probabilities) { 
 		if(probabilities.length == 1)
 			return 0;
 		
 		return spin(rand, createCumulativeWeights(probabilities));
 	}
 	
+	/**
+	 * Spin a roulette wheel over the first given weights, without allocating.
+	 * Runs in linear time, which is suited to the small numbers of candidates of a construction step.
+	 * @param rand - A random generator
+	 * @param weights - An array of non-normalized weights
+	 * @param count - The number of weights to consider, from the start of the array
+	 * @return an index between 0 (inclusive) and count (exclusive)
+	 */
+	public static int spin(RandomSource rand, double[] weights, int count) {
+		double total = 0;
+		for(int i = 0; i < count; i++)
+			total += weights[i];
+		
+		// Fall back to a uniform choice if the weights cannot be normalized
+		if(!(total > 0) || Double.isInfinite(total))
+			return rand.nextInt(count);
+		
+		double r = total * rand.nextDouble();
+		for(int i = 0; i < count - 1; i++) {
+			r -= weights[i];
+			if(r < 0)
+				return i;
+		}
+		return count - 1;
+	}
+	
 	/* Test of Roulette Wheel implementation */
 	/*public static void main(String[] args) {
-		Random r = new Random();
+		RandomSource r = RandomSource.create(null);
 		
 		float[] probas = new float[] {0f, 1f, 2f};
 		float[] weights = createCumulativeWeights(probas);
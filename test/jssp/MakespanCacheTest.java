@@ -0,0 +1,94 @@
+package jssp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the fingerprints of the makespan cache on instances where jobs visit the same machine several times.
+ * Run with: javac -d out $(find src test -name '*.java') && java -cp out jssp.MakespanCacheTest
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class MakespanCacheTest {
+	public static void main(String[] args) {
+		// 2 jobs of 3 operations on a single machine
+		testFingerprints(new ProblemInstance("single machine", 1, new int[] {0, 3, 6}, new int[] {0, 0, 0, 0, 0, 0}, new int[] {1, 2, 3, 4, 5, 6}));
+		// 2 jobs of 3 operations going back to their first machine
+		testFingerprints(new ProblemInstance("recirculation", 2, new int[] {0, 3, 6}, new int[] {0, 1, 0, 1, 0, 1}, new int[] {3, 1, 2, 2, 4, 1}));
+		// 3 jobs of different lengths, some visiting a machine three times
+		testFingerprints(new ProblemInstance("uneven", 2, new int[] {0, 4, 5, 8}, new int[] {1, 1, 0, 1, 0, 0, 1, 0}, new int[] {2, 1, 3, 2, 5, 1, 1, 2}));
+		
+		System.out.println("MakespanCacheTest: OK");
+	}
+	
+	/**
+	 * Fingerprint every complete order of an instance, and check that two orders have the same fingerprint exactly when they
+	 * describe the same schedule (same machine sequences in semi-active mode, same order in active mode).
+	 * @param pb - A problem instance
+	 */
+	private static void testFingerprints(ProblemInstance pb) {
+		List<int[]> orders = new ArrayList<int[]>();
+		enumerateOrders(pb, new int[pb.getTotalOperations()], 0, new int[pb.getNumberOfJobs()], orders);
+		
+		for(boolean machineSequences : new boolean[] {true, false}) {
+			MakespanCache cache = new MakespanCache(pb, 64, machineSequences);
+			Map<Long, String> schedules = new HashMap<Long, String>();
+			for(int[] order : orders) {
+				long key = cache.fingerprint(order);
+				String schedule = machineSequences ? describeMachineSequences(pb, order) : Arrays.toString(order);
+				String previous = schedules.putIfAbsent(key, schedule);
+				check(previous == null || previous.equals(schedule), pb.getName() + ": different schedules share a fingerprint");
+				
+				cache.put(key, order.length);
+				check(cache.get(key) == order.length, pb.getName() + ": cached makespan not found");
+			}
+			
+			long distinct = orders.stream().map(o -> machineSequences ? describeMachineSequences(pb, o) : Arrays.toString(o)).distinct().count();
+			check(schedules.size() == distinct, pb.getName() + ": equal schedules have different fingerprints");
+		}
+	}
+	
+	/**
+	 * List all complete orders of operations of an instance (actual operation indices).
+	 * @param pb - A problem instance
+	 * @param order - The order being built
+	 * @param length - The number of operations already in the order
+	 * @param next - The index (within its job) of the next operation of each job
+	 * @param orders - The list to which complete orders are added
+	 */
+	private static void enumerateOrders(ProblemInstance pb, int[] order, int length, int[] next, List<int[]> orders) {
+		if(length == order.length) {
+			orders.add(order.clone());
+			return;
+		}
+		for(int job = 0; job < pb.getNumberOfJobs(); job++) {
+			if(next[job] == pb.getNumberOfOperations(job))
+				continue;
+			order[length] = pb.getOperationIndex(job, next[job]++);
+			enumerateOrders(pb, order, length + 1, next, orders);
+			next[job]--;
+		}
+	}
+	
+	/**
+	 * Describe the sequence of operations processed by each machine for an order of operations.
+	 * @param pb - A problem instance
+	 * @param order - A complete order of operations
+	 * @return a string listing the operations of each machine in processing order
+	 */
+	private static String describeMachineSequences(ProblemInstance pb, int[] order) {
+		StringBuilder[] sequences = new StringBuilder[pb.getNumberOfMachines()];
+		for(int k = 0; k < sequences.length; k++)
+			sequences[k] = new StringBuilder();
+		for(int op : order)
+			sequences[pb.getMachine(op)].append(op).append(' ');
+		return String.join("|", sequences);
+	}
+	
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+}
@@ -0,0 +1,100 @@
+package pso;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jssp.ActiveScheduleDecoder;
+import jssp.ProblemInstance;
+import jssp.ProblemReader;
+
+/**
+ * Checks that schedules encoded into positions by the PSO decoders decode back to the same schedules.
+ * Run from the project root with: javac -d out $(find src test -name '*.java') && java -cp out pso.PositionDecoderTest
+ * @author Kelian Baert & Caroline de Pourtales
+ */
+public class PositionDecoderTest {
+	// Number of random schedules encoded for each instance
+	private static final int SCHEDULES = 200;
+	
+	public static void main(String[] args) {
+		for(String path : new String[] {"test-data/1.txt", "test-data/5.txt"}) {
+			ProblemInstance pb = new ProblemReader().readProblem(path);
+			Random random = new Random(42);
+			for(int i = 0; i < SCHEDULES; i++) {
+				int[] schedule = randomSchedule(pb, random);
+				testRandomKeys(pb, schedule);
+				testGifflerThompson(pb, schedule, 1.0f);
+				testGifflerThompson(pb, schedule, 0.2f);
+				testGifflerThompson(pb, schedule, 0.0f);
+			}
+		}
+		
+		System.out.println("PositionDecoderTest: OK");
+	}
+	
+	/**
+	 * Check that the random-key encoding of a schedule decodes to the same order.
+	 * @param pb - A problem instance
+	 * @param schedule - A complete order of operations, using actual operation indices
+	 */
+	private static void testRandomKeys(ProblemInstance pb, int[] schedule) {
+		RandomKeyDecoder decoder = new RandomKeyDecoder(schedule.length);
+		float[] positions = new float[schedule.length + 3];
+		check(decoder.encode(schedule, positions, 3, 0.0f, 6.0f), "random keys: encode reported a worse schedule");
+		check(Arrays.equals(decoder.decode(positions, 3), schedule), "random keys: the decoded order differs from the schedule");
+	}
+	
+	/**
+	 * Check that the Giffler-Thompson encoding of a schedule decodes to its active schedule (with delta = 1), or that
+	 * encode reports whether the decoded schedule is at least as good (with a smaller delta).
+	 * @param pb - A problem instance
+	 * @param schedule - A complete order of operations, using actual operation indices
+	 * @param delta - The width of the conflict set of the decoder
+	 */
+	private static void testGifflerThompson(ProblemInstance pb, int[] schedule, float delta) {
+		int n = schedule.length;
+		ActiveScheduleDecoder activeDecoder = new ActiveScheduleDecoder(pb);
+		int[] expectedStartTimes = new int[n], startTimes = new int[n];
+		int expectedMakespan = activeDecoder.decode(schedule, n, expectedStartTimes);
+		
+		GifflerThompsonDecoder decoder = new GifflerThompsonDecoder(pb, delta);
+		float[] positions = new float[n + 3];
+		boolean encoded = decoder.encode(schedule, positions, 3, 0.0f, 6.0f);
+		int makespan = activeDecoder.decode(decoder.decode(positions, 3), n, startTimes);
+		
+		check(encoded == (makespan <= expectedMakespan), "Giffler-Thompson (delta = " + delta + "): encode misreported the decoded makespan");
+		if(delta == 1.0f)
+			check(Arrays.equals(startTimes, expectedStartTimes), "Giffler-Thompson (delta = 1): the decoded schedule differs from the active schedule");
+	}
+	
+	/**
+	 * Draw a random complete order of operations.
+	 * @param pb - A problem instance
+	 * @param random - A random generator
+	 * @return an order of operations, using actual operation indices
+	 */
+	private static int[] randomSchedule(ProblemInstance pb, Random random) {
+		int n = pb.getTotalOperations();
+		int[] jobs = new int[n];
+		for(int op = 0; op < n; op++)
+			jobs[op] = pb.getJob(op);
+		for(int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = jobs[i];
+			jobs[i] = jobs[j];
+			jobs[j] = swap;
+		}
+		
+		// The k-th occurrence of a job is its k-th operation
+		int[] next = new int[pb.getNumberOfJobs()];
+		int[] schedule = new int[n];
+		for(int i = 0; i < n; i++)
+			schedule[i] = pb.getOperationIndex(jobs[i], next[jobs[i]]++);
+		return schedule;
+	}
+	
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+}